@@ -1,6 +1,7 @@
 package top.yinaicheng.annotation;
 
 import top.yinaicheng.constant.CachedOperationTypeEnum;
+import top.yinaicheng.constant.InvalidationTimingEnum;
 
 import java.lang.annotation.*;
 
@@ -44,7 +45,7 @@ public @interface CacheAnnotation {
     String cacheName() default "default";
 
     /**
-     * 是否允许缓存空值
+     * 是否允许缓存空值，开启后方法返回null时写入空值占位对象，过期时间由yinaicheng.cache.null-value-expiration配置
      */
     boolean cacheNull() default false;
 
@@ -62,4 +63,46 @@ public @interface CacheAnnotation {
      * 缓存同步，用于防止缓存击穿
      */
     boolean sync() default false;
+
+    /**
+     * 是否开启提前刷新，开启后缓存值会记录加载耗时和过期时间，越接近过期越可能由某次请求提前重新加载
+     */
+    boolean earlyRefresh() default false;
+
+    /**
+     * 提前刷新系数，大于1时更倾向提前刷新，仅在earlyRefresh为true时有效
+     */
+    double earlyRefreshBeta() default 1.0;
+
+    /**
+     * 过期后仍可返回旧值的宽限时长（秒），大于0时返回旧值并在后台异步重新加载，默认0不开启
+     */
+    int staleWhileRevalidate() default 0;
+
+    /**
+     * 批量缓存的集合参数下标，默认-1不开启；开启后集合中的每个元素以operateCacheKeyPrefix+元素值为key单独缓存，
+     * 一次批量读取，只用未命中的元素调用方法，方法返回值需为Map（以元素为key）或集合
+     */
+    int batchArgIndex() default -1;
+
+    /**
+     * 批量模式下从返回集合的元素中取出对应参数元素的SpEL表达式（以返回元素为根对象，如id），
+     * 未配置时按顺序与未命中的参数元素一一对应
+     */
+    String batchResultKey() default "";
+
+    /**
+     * 使用SCAN策略按前缀删除缓存时，是否等待后台删除完成后再执行方法，默认不等待
+     */
+    boolean awaitInvalidation() default false;
+
+    /**
+     * 按key删除缓存的时机，默认方法执行前删除；AFTER_COMMIT在事务提交后删除，没有事务时在方法返回后删除
+     */
+    InvalidationTimingEnum invalidationTiming() default InvalidationTimingEnum.BEFORE_INVOCATION;
+
+    /**
+     * 按key删除缓存时延迟再次删除的时长（毫秒），用于清除并发读取在更新期间写回的旧值，默认0不开启
+     */
+    long delayedDoubleDelete() default 0L;
 }
\ No newline at end of file
@@ -6,31 +6,55 @@ import org.apache.commons.lang3.StringUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
-import top.yinaicheng.annotation.CacheAnnotation;
+import top.yinaicheng.cache.AsyncCacheExecutor;
+import top.yinaicheng.cache.AsyncCacheRefresher;
+import top.yinaicheng.cache.CacheEntry;
+import top.yinaicheng.cache.CacheEvaluationContext;
+import top.yinaicheng.cache.CacheGenerationManager;
+import top.yinaicheng.cache.CacheKeyBuilder;
+import top.yinaicheng.cache.CacheNameRedisRouter;
+import top.yinaicheng.cache.CacheOperationMetadata;
+import top.yinaicheng.cache.CacheOperationMetadataRegistry;
+import top.yinaicheng.cache.CacheShardRouter;
+import top.yinaicheng.cache.DeferredCacheInvalidator;
+import top.yinaicheng.cache.DistributedLoadLease;
+import top.yinaicheng.cache.LocalCacheManager;
+import top.yinaicheng.cache.NullValue;
+import top.yinaicheng.cache.PrefixKeyIndex;
+import top.yinaicheng.cache.PrefixKeySweeper;
+import top.yinaicheng.cache.RedisCircuitBreaker;
+import top.yinaicheng.cache.ReplicaReadRouter;
+import top.yinaicheng.cache.SingleFlightLoader;
+import top.yinaicheng.cache.async.AsyncReturnAdapter;
+import top.yinaicheng.cache.bus.CacheInvalidationBus;
+import top.yinaicheng.cache.codec.CacheValueCodecRegistry;
+import top.yinaicheng.config.CacheProperties;
 import top.yinaicheng.constant.CachedOperationTypeEnum;
-import java.lang.reflect.Method;
+import top.yinaicheng.constant.InvalidationTimingEnum;
+import top.yinaicheng.constant.PrefixInvalidationStrategyEnum;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import static top.yinaicheng.utils.string.StringUtils.CONVERT_OBJECT_TO_STRING;
 /**
  * 系统缓存Aspect
  * @author yinaicheng
@@ -45,6 +69,93 @@ public class CacheAspect
 
     private final RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 本地一级缓存
+     */
+    private final LocalCacheManager localCacheManager;
+
+    /**
+     * 同一JVM内相同key的并发加载合并器
+     */
+    private final SingleFlightLoader singleFlightLoader;
+
+    /**
+     * 集群内相同key的加载租约
+     */
+    private final DistributedLoadLease distributedLoadLease;
+
+    /**
+     * 过期后返回旧值时的异步刷新器
+     */
+    private final AsyncCacheRefresher asyncCacheRefresher;
+
+    /**
+     * 异步方法的缓存读写线程池
+     */
+    private final AsyncCacheExecutor asyncCacheExecutor;
+
+    /**
+     * 缓存方法元数据注册表
+     */
+    private final CacheOperationMetadataRegistry cacheOperationMetadataRegistry;
+
+    /**
+     * 缓存key生成器
+     */
+    private final CacheKeyBuilder cacheKeyBuilder;
+
+    /**
+     * 缓存key前缀版本号管理器
+     */
+    private final CacheGenerationManager cacheGenerationManager;
+
+    /**
+     * 按前缀删除缓存的后台清理器
+     */
+    private final PrefixKeySweeper prefixKeySweeper;
+
+    /**
+     * 缓存key前缀索引
+     */
+    private final PrefixKeyIndex prefixKeyIndex;
+
+    /**
+     * 事务提交后删除和延迟再次删除缓存
+     */
+    private final DeferredCacheInvalidator deferredCacheInvalidator;
+
+    /**
+     * 通知其他节点删除本地缓存
+     */
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * 按cacheName选择缓存值编解码器
+     */
+    private final CacheValueCodecRegistry cacheValueCodecRegistry;
+
+    /**
+     * 按读取策略从从节点读取缓存
+     */
+    private final ReplicaReadRouter replicaReadRouter;
+
+    /**
+     * 客户端分片时按key选择节点
+     */
+    private final CacheShardRouter cacheShardRouter;
+
+    /**
+     * 按cacheName选择单独配置的Redis
+     */
+    private final CacheNameRedisRouter cacheNameRedisRouter;
+
+    /**
+     * redis熔断器，熔断期间不访问redis
+     */
+    private final RedisCircuitBreaker redisCircuitBreaker;
+
+    private final CacheProperties cacheProperties;
+
     /**
      * 关闭缓存切面功能标志，true开启，false关闭，默认开启
      */
@@ -52,18 +163,54 @@ public class CacheAspect
     private Boolean turnOnCacheSign;
 
     @Autowired
-    public CacheAspect(@Qualifier("data_governance_redis") RedisTemplate redisTemplate)
+    public CacheAspect(@Qualifier("data_governance_redis") RedisTemplate redisTemplate,LocalCacheManager localCacheManager,
+                       SingleFlightLoader singleFlightLoader,DistributedLoadLease distributedLoadLease,
+                       AsyncCacheRefresher asyncCacheRefresher,AsyncCacheExecutor asyncCacheExecutor,
+                       CacheOperationMetadataRegistry cacheOperationMetadataRegistry,
+                       CacheKeyBuilder cacheKeyBuilder,CacheGenerationManager cacheGenerationManager,
+                       PrefixKeySweeper prefixKeySweeper,PrefixKeyIndex prefixKeyIndex,
+                       DeferredCacheInvalidator deferredCacheInvalidator,CacheInvalidationBus cacheInvalidationBus,
+                       CacheValueCodecRegistry cacheValueCodecRegistry,ReplicaReadRouter replicaReadRouter,
+                       CacheShardRouter cacheShardRouter,CacheNameRedisRouter cacheNameRedisRouter,
+                       RedisCircuitBreaker redisCircuitBreaker,CacheProperties cacheProperties)
     {
+        configureSerializer(redisTemplate,cacheValueCodecRegistry);
+        /*单独的读取连接使用与主节点相同的序列化方式*/
+        if(replicaReadRouter.isEnabled()){
+            configureSerializer(replicaReadRouter.getReadRedisTemplate(),cacheValueCodecRegistry);
+        }
+        cacheShardRouter.getShards().forEach(shard->configureSerializer(shard,cacheValueCodecRegistry));
+        cacheNameRedisRouter.getRedisTemplates().forEach(template->configureSerializer(template,cacheValueCodecRegistry));
+        this.redisTemplate=redisTemplate;
+        this.localCacheManager=localCacheManager;
+        this.singleFlightLoader=singleFlightLoader;
+        this.distributedLoadLease=distributedLoadLease;
+        this.asyncCacheRefresher=asyncCacheRefresher;
+        this.asyncCacheExecutor=asyncCacheExecutor;
+        this.cacheOperationMetadataRegistry=cacheOperationMetadataRegistry;
+        this.cacheKeyBuilder=cacheKeyBuilder;
+        this.cacheGenerationManager=cacheGenerationManager;
+        this.prefixKeySweeper=prefixKeySweeper;
+        this.prefixKeyIndex=prefixKeyIndex;
+        this.deferredCacheInvalidator=deferredCacheInvalidator;
+        this.cacheInvalidationBus=cacheInvalidationBus;
+        this.cacheValueCodecRegistry=cacheValueCodecRegistry;
+        this.replicaReadRouter=replicaReadRouter;
+        this.cacheShardRouter=cacheShardRouter;
+        this.cacheNameRedisRouter=cacheNameRedisRouter;
+        this.redisCircuitBreaker=redisCircuitBreaker;
+        this.cacheProperties=cacheProperties;
+    }
+
+    private void configureSerializer(RedisTemplate<String,Object> redisTemplate,CacheValueCodecRegistry cacheValueCodecRegistry){
         /*使用GenericFastJsonRedisSerializer：替换默认序列化*/
         GenericFastJsonRedisSerializer fastJsonRedisSerializer = new GenericFastJsonRedisSerializer();
         /*设置默认的Serialize，包含 keySerializer & valueSerializer*/
         redisTemplate.setDefaultSerializer(fastJsonRedisSerializer);
         /*单独设置keySerializer*/
         redisTemplate.setKeySerializer(fastJsonRedisSerializer);
-        /*单独设置valueSerializer*/
-        redisTemplate.setValueSerializer(fastJsonRedisSerializer);
-        this.redisTemplate=redisTemplate;
-
+        /*单独设置valueSerializer：按cacheName选择的编解码器编码缓存值，其余值和原有缓存值仍使用FastJson*/
+        redisTemplate.setValueSerializer(cacheValueCodecRegistry.getValueSerializer());
     }
 
     /**
@@ -79,36 +226,49 @@ public class CacheAspect
 
         try
         {
-            /*反射技术：从注解来看，读取key的生成规则*/
-            /*获取当前方法和参数*/
-            MethodSignature methodSignature=(MethodSignature)proceedingJoinPoint.getSignature();
-            /*返回一个Method对象，它表示的是此Class对象所代表的类的指定公共成员方法*/
-            Method method;
-            try{
-                method=proceedingJoinPoint.getTarget().getClass().getMethod(methodSignature.getName(),methodSignature.getMethod().getParameterTypes());
+            /*获取预先解析的方法元数据（注解、表达式、参数名），每个方法只解析一次*/
+            CacheOperationMetadata metadata=cacheOperationMetadataRegistry.getMetadata(proceedingJoinPoint);
+            if(!Optional.ofNullable(metadata).isPresent()){
+                return proceedingJoinPoint.proceed();
             }
-            catch(NoSuchMethodException e) {
-                logger.error("获取Method对象对象异常，原因是{}",e.getMessage());
+
+            /*需要解析表达式时，创建本次调用的解析上下文，参数直接绑定原始对象；condition、key和unless共用该上下文*/
+            CacheEvaluationContext evaluationContext=metadata.isEvaluationRequired()
+                    ?metadata.createEvaluationContext(proceedingJoinPoint.getArgs(),proceedingJoinPoint.getTarget()):null;
+            /*不满足缓存条件时，不访问缓存，直接执行方法*/
+            if(Optional.ofNullable(metadata.getConditionExpression()).isPresent()
+                    && !Boolean.TRUE.equals(metadata.getConditionExpression().getValue(evaluationContext,Boolean.class))){
                 return proceedingJoinPoint.proceed();
             }
-            /*获取该方法的缓存注解*/
-            CacheAnnotation cacheAnnotation=method.getAnnotation(CacheAnnotation.class);
+
+            /*批量缓存方法按集合参数的元素逐个缓存*/
+            if(metadata.isBatch()){
+                return batchQueryCacheOperate(proceedingJoinPoint,metadata,evaluationContext);
+            }
 
             /*获取需要操作的缓存key*/
-            List<String> cacheKeyList=getNeedToOperateCacheKey(proceedingJoinPoint,method);
+            List<String> cacheKeyList=getNeedToOperateCacheKey(metadata,evaluationContext);
 
-            CachedOperationTypeEnum cachedOperationTypeEnum=cacheAnnotation.cacheOperateType();
+            CachedOperationTypeEnum cachedOperationTypeEnum=metadata.getOperationType();
+            /*使用前缀版本号时，查询和按key删除操作的缓存key转换为包含当前版本号的实际key*/
+            if(cacheGenerationManager.isEnabled() && cachedOperationTypeEnum!=CachedOperationTypeEnum.DELETE_CACHE_BY_KEY_PREFIX){
+                cacheKeyList=cacheKeyList.stream()
+                        .map(cacheKey->cacheGenerationManager.toPhysicalKey(metadata.getOperateCacheKeyPrefix(),cacheKey))
+                        .collect(Collectors.toList());
+            }
             Object value;
             switch (cachedOperationTypeEnum){
                 case DELETE_CACHE_BY_KEY_PREFIX:
-                    value= deleteCacheByKeyPrefixOperate(proceedingJoinPoint,cacheKeyList);
+                    value= deleteCacheByKeyPrefixOperate(proceedingJoinPoint,cacheKeyList,metadata);
                     break;
                 case DELETE_CACHE_BY_KEY:
-                    value= deleteCacheByKeyOperate(proceedingJoinPoint,cacheKeyList);
+                    value= deleteCacheByKeyOperate(proceedingJoinPoint,cacheKeyList,metadata);
                     break;
                 case QUERY_CACHE:
                 default:
-                    value=queryCacheOperate(proceedingJoinPoint,cacheKeyList,cacheAnnotation);
+                    /*异步方法缓存异步结果的值，不缓存future本身*/
+                    value=metadata.isAsync()?asyncQueryCacheOperate(proceedingJoinPoint,cacheKeyList,metadata,evaluationContext)
+                            :queryCacheOperate(proceedingJoinPoint,cacheKeyList,metadata,evaluationContext);
                     break;
             }
             return value;
@@ -121,42 +281,108 @@ public class CacheAspect
         }
     }
 
-    private Object deleteCacheByKeyPrefixOperate(ProceedingJoinPoint proceedingJoinPoint, List<String> cacheKeyList) throws Throwable {
+    private Object deleteCacheByKeyPrefixOperate(ProceedingJoinPoint proceedingJoinPoint, List<String> cacheKeyList,
+                                                 CacheOperationMetadata metadata) throws Throwable {
         /*如果缓存key列表为空，则没有必要进行redis操作*/
         if(CollectionUtils.isEmpty(cacheKeyList)){
             return proceedingJoinPoint.proceed();
         }
-        Set<String> remoteCachekeys=redisTemplate.opsForSet().union(cacheKeyList.get(0),cacheKeyList).stream().map(element->{
-            if(Optional.ofNullable(element).isPresent()){
-                return String.valueOf(element);
+        /*删除期间及删除后的一段时间内，该前缀下的key从主节点读取*/
+        replicaReadRouter.recordPrefixWrite(cacheKeyList);
+        /*使用前缀版本号时，只需将前缀版本号加一，旧版本的key随过期时间自然淘汰*/
+        if(cacheGenerationManager.isEnabled()){
+            cacheKeyList.forEach(cacheGenerationManager::increment);
+            localCacheManager.evictByPrefix(cacheKeyList);
+            cacheInvalidationBus.publish(metadata.getCacheName(),Collections.emptyList(),cacheKeyList);
+            logger.info("redis中{}的版本号已更新",cacheKeyList);
+            return proceedingJoinPoint.proceed();
+        }
+        /*使用游标扫描时，在后台按批次删除匹配前缀的key，默认不等待删除完成*/
+        if(cacheProperties.getPrefixInvalidationStrategy()==PrefixInvalidationStrategyEnum.SCAN){
+            localCacheManager.evictByPrefix(cacheKeyList);
+            CompletableFuture<?>[] sweepFutures=cacheKeyList.stream().map(prefix->prefixKeySweeper.sweep(metadata.getCacheName(),prefix)).toArray(CompletableFuture[]::new);
+            /*删除完成后再次清除本地缓存并通知其他节点，删除期间可能读取到未删除的key*/
+            CompletableFuture<Void> sweepFuture=CompletableFuture.allOf(sweepFutures).whenComplete((result,throwable)->{
+                localCacheManager.evictByPrefix(cacheKeyList);
+                cacheInvalidationBus.publish(metadata.getCacheName(),Collections.emptyList(),cacheKeyList);
+            });
+            if(metadata.getCacheAnnotation().awaitInvalidation()){
+                try{
+                    sweepFuture.get(cacheProperties.getScan().getAwaitTimeout(),TimeUnit.MILLISECONDS);
+                }
+                catch (TimeoutException exception){
+                    logger.warn("等待redis中{}被清空超时",cacheKeyList);
+                }
+                catch (ExecutionException exception){
+                    /*删除失败的原因已在清理器中记录*/
+                    logger.warn("等待redis中{}被清空时删除失败",cacheKeyList);
+                }
             }
-            return null;
-        }).collect(Collectors.toSet());
-
-        /*获取所有的key*/
-        List<String> needRemoveCachekeyList=Stream.of(remoteCachekeys).flatMap(Collection::stream).collect(Collectors.toList());
+            return proceedingJoinPoint.proceed();
+        }
+        /*获取前缀索引中未过期的key，已过期的key无需删除*/
+        List<String> needRemoveCachekeyList=new ArrayList<>(prefixKeyIndex.getLiveKeys(cacheKeyList));
         if(!CollectionUtils.isEmpty(needRemoveCachekeyList)){
-            redisTemplate.delete(needRemoveCachekeyList);
+            deleteRedisValues(metadata.getCacheName(),needRemoveCachekeyList);
+            localCacheManager.evict(needRemoveCachekeyList);
         }
+        prefixKeyIndex.remove(cacheKeyList);
+        /*本地缓存中可能存在redis索引之外的key，按前缀一并清除*/
+        localCacheManager.evictByPrefix(cacheKeyList);
+        cacheInvalidationBus.publish(metadata.getCacheName(),Collections.emptyList(),cacheKeyList);
         logger.info("redis中{}被清空",cacheKeyList);
         return proceedingJoinPoint.proceed();
     }
 
-    private Object deleteCacheByKeyOperate(ProceedingJoinPoint proceedingJoinPoint, List<String> cacheKeyList) throws Throwable {
+    private Object deleteCacheByKeyOperate(ProceedingJoinPoint proceedingJoinPoint, List<String> cacheKeyList,
+                                           CacheOperationMetadata metadata) throws Throwable {
         /*如果缓存key列表为空，则没有必要进行redis操作*/
         if(CollectionUtils.isEmpty(cacheKeyList)){
             return proceedingJoinPoint.proceed();
         }
-        redisTemplate.delete(cacheKeyList);
-        logger.info("redis中{}被清空",cacheKeyList);
-        return proceedingJoinPoint.proceed();
+        Runnable invalidation=()->{
+            replicaReadRouter.recordWrite(cacheKeyList);
+            deleteRedisValues(metadata.getCacheName(),cacheKeyList);
+            localCacheManager.evict(cacheKeyList);
+            cacheInvalidationBus.publish(metadata.getCacheName(),cacheKeyList,Collections.emptyList());
+            logger.info("redis中{}被清空",cacheKeyList);
+        };
+        long delayedDoubleDelete=metadata.getCacheAnnotation().delayedDoubleDelete();
+        /*事务提交后（没有事务时在方法返回后）再删除，避免并发读取在更新完成前写回旧值*/
+        if(metadata.getCacheAnnotation().invalidationTiming()==InvalidationTimingEnum.AFTER_COMMIT){
+            /*异步方法在返回的异步结果完成后再删除*/
+            if(metadata.isAsync()){
+                Object value;
+                try{
+                    value=proceedingJoinPoint.proceed();
+                }
+                catch (Throwable throwable){
+                    deferredCacheInvalidator.invalidateAfterCommit(invalidation,delayedDoubleDelete);
+                    throw throwable;
+                }
+                return metadata.getAsyncReturnAdapter().afterCompletion(value,
+                        ()->deferredCacheInvalidator.invalidateAfterCommit(invalidation,delayedDoubleDelete));
+            }
+            try{
+                return proceedingJoinPoint.proceed();
+            }
+            finally {
+                deferredCacheInvalidator.invalidateAfterCommit(invalidation,delayedDoubleDelete);
+            }
+        }
+        invalidation.run();
+        Object value=proceedingJoinPoint.proceed();
+        /*开启延迟双删时，在方法返回（或事务提交）后延迟再次删除，异步方法在异步结果完成后开始计时*/
+        if(metadata.isAsync() && delayedDoubleDelete>0){
+            return metadata.getAsyncReturnAdapter().afterCompletion(value,
+                    ()->deferredCacheInvalidator.scheduleAfterCommit(invalidation,delayedDoubleDelete));
+        }
+        deferredCacheInvalidator.scheduleAfterCommit(invalidation,delayedDoubleDelete);
+        return value;
     }
 
-    private Object queryCacheOperate(ProceedingJoinPoint proceedingJoinPoint,List<String> cacheKeyList,CacheAnnotation cacheAnnotation) throws Throwable {
-        /*反射技术：从注解来看，读取key的生成规则*/
-        /*获取当前方法和参数*/
-        MethodSignature methodSignature=(MethodSignature)proceedingJoinPoint.getSignature();
-        String methodName=proceedingJoinPoint.getTarget().getClass().getName().concat(".").concat(methodSignature.getName());
+    private Object queryCacheOperate(ProceedingJoinPoint proceedingJoinPoint,List<String> cacheKeyList,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext) throws Throwable {
+        String methodName=metadata.getMethodName();
         /*通过key来命中缓存，如果缓存中没有，则查询数据库，然后放入缓存*/
         /*从缓存中获取值*/
         Object value;
@@ -165,86 +391,786 @@ public class CacheAspect
             return proceedingJoinPoint.proceed();
         }
         String cacheKey=cacheKeyList.get(0);
-        try{
-            value=redisTemplate.opsForValue().get(cacheKey);
+        String cacheName=metadata.getCacheName();
+        /*先从本地缓存中获取值，命中则无需访问redis*/
+        value=localCacheManager.get(cacheName,cacheKey);
+        if(Optional.ofNullable(value).isPresent())
+        {
+            logger.debug("通过key:{}从本地缓存中获取值了，方法名：{}",cacheKey,methodName);
         }
-        catch (Exception exception){
-            logger.error("通过key:{}获取redis对应的value出错，原因是{}",cacheKey,exception.getMessage());
-            exception.printStackTrace();
-            return proceedingJoinPoint.proceed();
+        else
+        {
+            /*redis熔断时不访问redis，直接调用方法，也不写入缓存*/
+            if(!redisCircuitBreaker.tryAcquire()){
+                logger.debug("redis熔断中，通过key:{}直接调用方法，方法名：{}",cacheKey,methodName);
+                return proceedingJoinPoint.proceed();
+            }
+            try{
+                value=redisCircuitBreaker.record(()->readRedisValue(cacheName,cacheKey,metadata,getReadRedisTemplate(cacheName,cacheKey)));
+            }
+            catch (Exception exception){
+                logger.error("通过key:{}获取redis对应的value出错，原因是{}",cacheKey,exception.getMessage());
+                exception.printStackTrace();
+                return proceedingJoinPoint.proceed();
+            }
+            if(Optional.ofNullable(value).isPresent()){
+                logger.info("通过key:{}从缓存中获取值了，方法名：{}",cacheKey,methodName);
+            }
         }
-        /*如果缓存中的值存在，直接返回缓存中的值*/
+        /*如果缓存中的值存在且无需提前刷新，直接返回缓存中的值*/
         if(Optional.ofNullable(value).isPresent())
         {
-            logger.info("通过key:{}从缓存中获取值了，方法名：{}",cacheKey,methodName);
+            /*已逻辑过期但仍在宽限期内，直接返回旧值，并在后台异步重新加载*/
+            if(isStale(value,metadata)){
+                logger.info("通过key:{}返回过期的缓存值并异步刷新，方法名：{}",cacheKey,methodName);
+                asyncCacheRefresher.refresh(cacheKey,()->loadAndCacheValue(proceedingJoinPoint,cacheKey,metadata,evaluationContext));
+                return unwrapCacheValue(value);
+            }
+            if(!needEarlyRefresh(value,metadata)){
+                return unwrapCacheValue(value);
+            }
+            logger.info("通过key:{}提前刷新缓存，方法名：{}",cacheKey,methodName);
+        }
+        else
+        {
+            /*如果缓存中的值不存在*/
+            logger.info("通过key:{}没有从缓存中获取值，方法名：{}",cacheKey,methodName);
+        }
+        /*开启缓存同步时，同一JVM内相同key的并发请求共享一次加载，防止缓存击穿*/
+        if(metadata.getCacheAnnotation().sync()){
+            return singleFlightLoader.load(cacheKey,cacheProperties.getSyncWaitTimeout(),()->{
+                /*前一次加载可能刚刚完成，先检查本地缓存*/
+                Object localValue=localCacheManager.get(cacheName,cacheKey);
+                if(Optional.ofNullable(localValue).isPresent() && !needEarlyRefresh(localValue,metadata)){
+                    return unwrapCacheValue(localValue);
+                }
+                /*开启分布式加载租约时，集群内只有获得租约的节点加载，其余节点等待其写入redis*/
+                if(distributedLoadLease.isEnabled()){
+                    return unwrapCacheValue(distributedLoadLease.load(cacheKey,cacheName,
+                            ()->readLeaseValue(cacheName,cacheKey,metadata),
+                            ()->loadAndPublishValue(proceedingJoinPoint,cacheKey,metadata,evaluationContext)));
+                }
+                return loadAndCacheValue(proceedingJoinPoint,cacheKey,metadata,evaluationContext);
+            });
+        }
+        return loadAndCacheValue(proceedingJoinPoint,cacheKey,metadata,evaluationContext);
+    }
+
+    /**
+     * 获取读取该key使用的RedisTemplate，最近写入的key仍从主节点读取
+     */
+    private RedisTemplate<String,Object> getReadRedisTemplate(String cacheName,String cacheKey){
+        if(cacheNameRedisRouter.getRedisTemplate(cacheName)==null && replicaReadRouter.isReplicaReadable(cacheKey)){
+            return replicaReadRouter.getReadRedisTemplate();
+        }
+        return getRedisTemplate(cacheName,cacheKey);
+    }
+
+    /**
+     * 获取写入该key使用的RedisTemplate：cacheName单独配置了Redis时使用单独的Redis，客户端分片时为key所在的分片节点
+     */
+    private RedisTemplate<String,Object> getRedisTemplate(String cacheName,String cacheKey){
+        RedisTemplate<String,Object> cacheNameRedisTemplate=cacheNameRedisRouter.getRedisTemplate(cacheName);
+        if(cacheNameRedisTemplate!=null){
+            return cacheNameRedisTemplate;
+        }
+        return cacheShardRouter.isEnabled()?cacheShardRouter.getShard(cacheKey):redisTemplate;
+    }
+
+    /**
+     * 删除redis中的key，客户端分片时按分片并行删除
+     */
+    private void deleteRedisValues(String cacheName,List<String> cacheKeyList){
+        /*删除不受熔断限制，避免熔断期间保留旧值，结果只计入关闭状态的统计，不作为半开状态的试探结果*/
+        redisCircuitBreaker.recordWithoutPermit(()->{
+            RedisTemplate<String,Object> cacheNameRedisTemplate=cacheNameRedisRouter.getRedisTemplate(cacheName);
+            if(cacheNameRedisTemplate!=null){
+                return cacheNameRedisTemplate.delete(cacheKeyList);
+            }
+            if(cacheShardRouter.isEnabled()){
+                return cacheShardRouter.executeByShard(cacheKeyList,(shard,shardKeyList)->shard.delete(shardKeyList));
+            }
+            return redisTemplate.delete(cacheKeyList);
+        });
+    }
+
+    /**
+     * 批量读取redis中的值，结果与key列表顺序一致；开启从节点读取时，最近写入的key从主节点读取，其余key从从节点读取
+     */
+    private List<Object> multiGetRedisValues(String cacheName,List<String> cacheKeyList){
+        RedisTemplate<String,Object> cacheNameRedisTemplate=cacheNameRedisRouter.getRedisTemplate(cacheName);
+        if(cacheNameRedisTemplate!=null){
+            return cacheNameRedisTemplate.opsForValue().multiGet(cacheKeyList);
+        }
+        /*客户端分片时按分片并行MGET*/
+        if(cacheShardRouter.isEnabled()){
+            Map<String,Object> valueMap=new HashMap<>(cacheKeyList.size()<<1);
+            cacheShardRouter.executeByShard(cacheKeyList,(shard,shardKeyList)->{
+                Map<String,Object> shardValueMap=new HashMap<>(shardKeyList.size()<<1);
+                putAll(shardValueMap,shardKeyList,shard.opsForValue().multiGet(shardKeyList));
+                return shardValueMap;
+            }).forEach(valueMap::putAll);
+            return toValueList(cacheKeyList,valueMap);
+        }
+        if(!replicaReadRouter.isEnabled()){
+            return redisTemplate.opsForValue().multiGet(cacheKeyList);
+        }
+        List<String> replicaKeyList=new ArrayList<>(cacheKeyList.size());
+        List<String> masterKeyList=new ArrayList<>();
+        for(String cacheKey:cacheKeyList){
+            (replicaReadRouter.isReplicaReadable(cacheKey)?replicaKeyList:masterKeyList).add(cacheKey);
+        }
+        if(masterKeyList.isEmpty()){
+            return replicaReadRouter.getReadRedisTemplate().opsForValue().multiGet(cacheKeyList);
+        }
+        Map<String,Object> valueMap=new HashMap<>(cacheKeyList.size()<<1);
+        putAll(valueMap,masterKeyList,redisTemplate.opsForValue().multiGet(masterKeyList));
+        if(!replicaKeyList.isEmpty()){
+            putAll(valueMap,replicaKeyList,replicaReadRouter.getReadRedisTemplate().opsForValue().multiGet(replicaKeyList));
+        }
+        return toValueList(cacheKeyList,valueMap);
+    }
+
+    private List<Object> toValueList(List<String> cacheKeyList,Map<String,Object> valueMap){
+        List<Object> valueList=new ArrayList<>(cacheKeyList.size());
+        cacheKeyList.forEach(cacheKey->valueList.add(valueMap.get(cacheKey)));
+        return valueList;
+    }
+
+    private void putAll(Map<String,Object> valueMap,List<String> keyList,List<Object> valueList){
+        for(int i=0;valueList!=null && i<keyList.size();i++){
+            valueMap.put(keyList.get(i),valueList.get(i));
+        }
+    }
+
+    /**
+     * 读取redis中已缓存的值，命中时同时写入本地缓存，本地缓存的过期时间不超过key在redis中的剩余过期时间
+     */
+    private Object readRedisValue(String cacheName,String cacheKey,CacheOperationMetadata metadata,
+                                  RedisTemplate<String,Object> readRedisTemplate){
+        /*按返回值类型编解码的值在此按方法的返回值类型解码*/
+        Object value=cacheValueCodecRegistry.decode(readRedisTemplate.opsForValue().get(cacheKey),metadata.getValueType());
+        if(Optional.ofNullable(value).isPresent() && localCacheManager.isEnabled()){
+            try{
+                putLocalCache(cacheName,cacheKey,value,metadata,readRedisTemplate.getExpire(cacheKey,TimeUnit.MILLISECONDS));
+            }
+            catch (Exception exception){
+                /*无法获取剩余过期时间时不写入本地缓存*/
+                logger.warn("获取key:{}的剩余过期时间出错，原因是{}",cacheKey,exception.getMessage());
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 将从redis读取的值写入本地缓存，过期时间不超过注解的缓存时长（空值为空值缓存时长）和key在redis中的剩余过期时间
+     */
+    private void putLocalCache(String cacheName,String cacheKey,Object value,CacheOperationMetadata metadata,Long remainingMillis){
+        long ttlMillis=value instanceof NullValue?metadata.getNullValueExpirationMillis():TimeUnit.MINUTES.toMillis(metadata.getDuration());
+        /*-1表示key未设置过期时间，-2表示key已不存在，此时过期时间为负数，不写入本地缓存*/
+        if(remainingMillis==null){
+            return;
+        }
+        if(remainingMillis!=-1){
+            ttlMillis=Math.min(ttlMillis,remainingMillis);
+        }
+        localCacheManager.put(cacheName,cacheKey,value,ttlMillis);
+    }
+
+    /**
+     * 批量获取key在redis中的剩余过期时间（毫秒），客户端分片时按分片并行获取，获取失败时返回空映射
+     */
+    private Map<String,Long> multiGetRemainingMillis(String cacheName,List<String> cacheKeyList){
+        Map<String,Long> remainingMillisMap=new HashMap<>(cacheKeyList.size()<<1);
+        try{
+            RedisTemplate<String,Object> cacheNameRedisTemplate=cacheNameRedisRouter.getRedisTemplate(cacheName);
+            if(cacheNameRedisTemplate==null && cacheShardRouter.isEnabled()){
+                cacheShardRouter.executeByShard(cacheKeyList,(shard,shardKeyList)->getRemainingMillis(shard,shardKeyList))
+                        .forEach(remainingMillisMap::putAll);
+            }
+            else{
+                remainingMillisMap.putAll(getRemainingMillis(cacheNameRedisTemplate!=null?cacheNameRedisTemplate:redisTemplate,cacheKeyList));
+            }
+        }
+        catch (Exception exception){
+            logger.warn("批量获取key:{}的剩余过期时间出错，原因是{}",cacheKeyList,exception.getMessage());
+        }
+        return remainingMillisMap;
+    }
+
+    private Map<String,Long> getRemainingMillis(RedisTemplate<String,Object> template,List<String> cacheKeyList){
+        Map<String,Long> remainingMillisMap=new HashMap<>(cacheKeyList.size()<<1);
+        if(isJedisCluster(template)){
+            cacheKeyList.forEach(cacheKey->remainingMillisMap.put(cacheKey,template.getExpire(cacheKey,TimeUnit.MILLISECONDS)));
+            return remainingMillisMap;
+        }
+        List<Object> resultList=template.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String,Object> redisOperations=(RedisOperations<String,Object>)operations;
+                cacheKeyList.forEach(cacheKey->redisOperations.getExpire(cacheKey,TimeUnit.MILLISECONDS));
+                return null;
+            }
+        });
+        for(int i=0;i<cacheKeyList.size() && i<resultList.size();i++){
+            Object result=resultList.get(i);
+            remainingMillisMap.put(cacheKeyList.get(i),result instanceof Number?((Number)result).longValue():null);
+        }
+        return remainingMillisMap;
+    }
+
+    /**
+     * 读取redis中已缓存且无需刷新的值（未取出信封中的值），不存在或需要刷新时返回null
+     */
+    private Object readFreshRedisValue(String cacheName,String cacheKey,CacheOperationMetadata metadata){
+        /*获取租约后确认其他节点是否已加载，从主节点读取*/
+        Object value=readRedisValue(cacheName,cacheKey,metadata,getRedisTemplate(cacheName,cacheKey));
+        if(Optional.ofNullable(value).isPresent() && !needEarlyRefresh(value,metadata)){
             return value;
         }
-        /*如果缓存中的值不存在*/
-        logger.info("通过key:{}没有从缓存中获取值，方法名：{}",cacheKey,methodName);
-        /*获取缓存时长*/
-        int duration=cacheAnnotation.duration();
-        duration=NumberUtils.GENERATE_INTEGER_VALUE_FUNCTION.apply(new int[]{duration,duration<<1});
-        String operateCacheKeyPrefix=cacheAnnotation.operateCacheKeyPrefix();
+        return null;
+    }
+
+    /**
+     * 缓存值是否需要提前刷新
+     */
+    private boolean needEarlyRefresh(Object cacheValue,CacheOperationMetadata metadata){
+        return metadata.getCacheAnnotation().earlyRefresh() && cacheValue instanceof CacheEntry
+                && ((CacheEntry)cacheValue).isEarlyRefreshDue(metadata.getCacheAnnotation().earlyRefreshBeta());
+    }
+
+    /**
+     * 缓存值是否已逻辑过期，仅在开启过期后返回旧值时有效
+     */
+    private boolean isStale(Object cacheValue,CacheOperationMetadata metadata){
+        return metadata.getStaleWhileRevalidateMillis()>0 && cacheValue instanceof CacheEntry
+                && System.currentTimeMillis()>=((CacheEntry)cacheValue).getExpireAt();
+    }
+
+    /**
+     * 取出缓存值信封中的值，空值占位对象还原为null
+     */
+    private Object unwrapCacheValue(Object cacheValue){
+        if(cacheValue instanceof NullValue){
+            return null;
+        }
+        return cacheValue instanceof CacheEntry?((CacheEntry)cacheValue).getValue():cacheValue;
+    }
+
+    /**
+     * 方法返回值是否满足排除缓存条件
+     */
+    private boolean isUnlessMatched(CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext,Object value){
+        if(!Optional.ofNullable(metadata.getUnlessExpression()).isPresent()){
+            return false;
+        }
+        /*复用本次调用的解析上下文，只更新#result*/
+        evaluationContext.setResult(value);
+        return Boolean.TRUE.equals(metadata.getUnlessExpression().getValue(evaluationContext,Boolean.class));
+    }
+
+    /**
+     * 从数据库或其他渠道获取数据，再存储到本地缓存和redis中
+     */
+    private Object loadAndCacheValue(ProceedingJoinPoint proceedingJoinPoint,String cacheKey,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext) throws Throwable {
         /*从数据库中查到值*/
-        value=proceedingJoinPoint.proceed();
+        long loadStartTime=System.currentTimeMillis();
+        Object value=proceedingJoinPoint.proceed();
+        cacheLoadedValue(cacheKey,metadata,evaluationContext,value,loadStartTime,false);
+        return value;
+    }
+
+    /**
+     * 持有加载租约时加载并缓存值，值不满足缓存条件（空值或满足排除缓存条件）时记录加载结果，等待的节点直接返回该结果而不逐个重新加载
+     */
+    private Object loadAndPublishValue(ProceedingJoinPoint proceedingJoinPoint,String cacheKey,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext) throws Throwable {
+        long loadStartTime=System.currentTimeMillis();
+        Object value=proceedingJoinPoint.proceed();
+        if(!cacheLoadedValue(cacheKey,metadata,evaluationContext,value,loadStartTime,false)){
+            Object outcome=Optional.ofNullable(value).isPresent()?value:NullValue.INSTANCE;
+            distributedLoadLease.publishOutcome(cacheKey,cacheValueCodecRegistry.wrap(metadata.getCacheName(),outcome,metadata.getValueType()));
+        }
+        return value;
+    }
+
+    /**
+     * 等待加载租约时读取redis中已缓存的值，未缓存时读取持有租约的节点记录的加载结果（不写入本地缓存）
+     */
+    private Object readLeaseValue(String cacheName,String cacheKey,CacheOperationMetadata metadata){
+        Object value=readFreshRedisValue(cacheName,cacheKey,metadata);
+        if(Optional.ofNullable(value).isPresent()){
+            return value;
+        }
+        return cacheValueCodecRegistry.decode(distributedLoadLease.readOutcome(cacheKey),metadata.getValueType());
+    }
+
+    /**
+     * 将加载的值存储到本地缓存和redis中
+     * @param asyncWrite 是否在异步缓存线程池中写入redis，异步方法的结果可能在IO线程中完成，不能阻塞
+     * @return 值是否满足缓存条件，空值不允许缓存或满足排除缓存条件时返回false
+     */
+    private boolean cacheLoadedValue(String cacheKey,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext,
+                                  Object value,long loadStartTime,boolean asyncWrite){
+        long loadEndTime=System.currentTimeMillis();
+        String cacheName=metadata.getCacheName();
+        String operateCacheKeyPrefix=metadata.getOperateCacheKeyPrefix();
+        /*满足排除缓存条件时，不写入缓存*/
+        if(isUnlessMatched(metadata,evaluationContext,value)){
+            return false;
+        }
+        /*开启提前刷新或过期后返回旧值时，缓存值带上加载耗时和逻辑过期时间*/
+        Object cacheValue=value;
+        long durationMillis=getRandomDurationMillis(metadata);
+        long storeMillis=durationMillis;
+        if(!Optional.ofNullable(value).isPresent()){
+            /*不允许缓存空值时，不写入缓存*/
+            if(!metadata.getCacheAnnotation().cacheNull() && !cacheProperties.isCacheNullValues()){
+                return false;
+            }
+            /*空值以占位对象写入缓存，使用单独的较短过期时间*/
+            cacheValue=NullValue.INSTANCE;
+            storeMillis=metadata.getNullValueExpirationMillis();
+        }
+        else if(metadata.isCacheEntryRequired()){
+            cacheValue=new CacheEntry(value,loadEndTime-loadStartTime,loadEndTime+durationMillis);
+            /*逻辑过期后旧值在redis中再保留宽限时长*/
+            storeMillis+=metadata.getStaleWhileRevalidateMillis();
+        }
+        /*本地缓存的过期时间不超过redis中的缓存时长*/
+        localCacheManager.put(cacheName,cacheKey,cacheValue,storeMillis);
+        Object redisValue=cacheValueCodecRegistry.wrap(cacheName,cacheValue,metadata.getValueType());
+        long redisStoreMillis=storeMillis;
+        /*redis熔断时只写入本地缓存，不提交redis写入任务，避免异步线程池堆积；写入依附于本次缓存操作，不再占用半开状态的试探请求*/
+        if(redisCircuitBreaker.isOpen()){
+            logger.debug("redis熔断中，通过key:{}只写入本地缓存",cacheKey);
+            return true;
+        }
         /*往Redis里面存数据*/
+        Runnable redisWrite=()->{
+            try{
+                replicaReadRouter.recordWrite(Collections.singletonList(cacheKey));
+                redisCircuitBreaker.recordWithoutPermit(()->{
+                    getRedisTemplate(cacheName,cacheKey).opsForValue().set(cacheKey,redisValue,redisStoreMillis,TimeUnit.MILLISECONDS);
+                    return null;
+                });
+                /*因为调用的Redis服务不支持通过模糊key匹配进行批量删除，因此需要通过要操作的缓存key前缀找到key列表，再进行批量删除*/
+                if(StringUtils.isNotEmpty(operateCacheKeyPrefix) && metadata.isJudgeSpel() && isPrefixIndexRequired()){
+                    prefixKeyIndex.add(operateCacheKeyPrefix,cacheKey,System.currentTimeMillis()+redisStoreMillis);
+                }
+            }
+            catch (Exception exception){
+                logger.error("通过key:{}往redis插入对应的value出错，原因是{}",cacheKey,exception.getMessage());
+                exception.printStackTrace();
+            }
+        };
+        if(asyncWrite){
+            asyncCacheExecutor.execute(cacheKey,redisWrite);
+        }
+        else{
+            redisWrite.run();
+        }
+        return true;
+    }
+
+    /**
+     * 异步查询缓存：先查本地缓存，未命中时在异步缓存线程池中读取redis，不阻塞调用线程；
+     * 仍未命中时调用方法，在异步结果完成后缓存其值，返回与方法声明类型相同的异步结果
+     */
+    private Object asyncQueryCacheOperate(ProceedingJoinPoint proceedingJoinPoint,List<String> cacheKeyList,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext) throws Throwable {
+        /*如果缓存key列表为空，则没有必要进行redis操作*/
+        if(CollectionUtils.isEmpty(cacheKeyList)){
+            return proceedingJoinPoint.proceed();
+        }
+        String cacheKey=cacheKeyList.get(0);
+        return metadata.getAsyncReturnAdapter().fromFuture(()->asyncQueryCacheValue(proceedingJoinPoint,cacheKey,metadata,evaluationContext));
+    }
+
+    private CompletableFuture<Object> asyncQueryCacheValue(ProceedingJoinPoint proceedingJoinPoint,String cacheKey,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext){
+        String methodName=metadata.getMethodName();
+        String cacheName=metadata.getCacheName();
+        /*先从本地缓存中获取值，命中则无需访问redis*/
+        Object localValue=localCacheManager.get(cacheName,cacheKey);
+        CompletableFuture<Object> cacheFuture;
+        if(Optional.ofNullable(localValue).isPresent()){
+            logger.debug("通过key:{}从本地缓存中获取值了，方法名：{}",cacheKey,methodName);
+            cacheFuture=CompletableFuture.completedFuture(localValue);
+        }
+        else if(!redisCircuitBreaker.tryAcquire()){
+            /*redis熔断时不提交读取任务，按未命中处理*/
+            logger.debug("redis熔断中，通过key:{}直接调用方法，方法名：{}",cacheKey,methodName);
+            cacheFuture=CompletableFuture.completedFuture(null);
+        }
+        else{
+            /*读取redis出错或线程池已满时按未命中处理*/
+            cacheFuture=asyncCacheExecutor.supply(()->redisCircuitBreaker.record(
+                    ()->readRedisValue(cacheName,cacheKey,metadata,getReadRedisTemplate(cacheName,cacheKey)))).exceptionally(throwable->{
+                logger.error("通过key:{}获取redis对应的value出错，原因是{}",cacheKey,throwable.getMessage());
+                return null;
+            });
+        }
+        /*本地缓存命中或熔断时结果已完成，后续在调用线程中执行，方法也在调用线程中调用；否则在加载线程池中调用，不占用读写redis的线程*/
+        boolean callerThread=cacheFuture.isDone();
+        Supplier<CompletableFuture<Object>> loader=callerThread
+                ?()->loadAndCacheValueAsync(proceedingJoinPoint,cacheKey,metadata,evaluationContext)
+                :()->asyncCacheExecutor.load(()->loadAndCacheValueAsync(proceedingJoinPoint,cacheKey,metadata,evaluationContext));
+        return cacheFuture.thenCompose(value->{
+            if(Optional.ofNullable(value).isPresent()){
+                /*已逻辑过期但仍在宽限期内，直接返回旧值，并在后台异步重新加载*/
+                if(isStale(value,metadata)){
+                    logger.info("通过key:{}返回过期的缓存值并异步刷新，方法名：{}",cacheKey,methodName);
+                    asyncCacheRefresher.refreshAsync(cacheKey,()->asyncCacheExecutor.load(
+                            ()->loadAndCacheValueAsync(proceedingJoinPoint,cacheKey,metadata,evaluationContext)));
+                    return CompletableFuture.completedFuture(unwrapCacheValue(value));
+                }
+                if(!needEarlyRefresh(value,metadata)){
+                    return CompletableFuture.completedFuture(unwrapCacheValue(value));
+                }
+                logger.info("通过key:{}提前刷新缓存，方法名：{}",cacheKey,methodName);
+            }
+            else{
+                logger.info("通过key:{}没有从缓存中获取值，方法名：{}",cacheKey,methodName);
+            }
+            /*开启缓存同步时，同一JVM内相同key的并发请求共享一次加载*/
+            if(metadata.getCacheAnnotation().sync()){
+                return singleFlightLoader.loadAsync(cacheKey,loader);
+            }
+            return loader.get();
+        });
+    }
+
+    /**
+     * 调用异步方法，在异步结果完成后将其值存储到本地缓存和redis中
+     */
+    private CompletableFuture<Object> loadAndCacheValueAsync(ProceedingJoinPoint proceedingJoinPoint,String cacheKey,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext){
+        AsyncReturnAdapter asyncReturnAdapter=metadata.getAsyncReturnAdapter();
+        long loadStartTime=System.currentTimeMillis();
+        CompletableFuture<Object> loadFuture;
         try{
-            redisTemplate.opsForValue().set(cacheKey, value,duration,TimeUnit.MINUTES);
-            /*因为调用的Redis服务不支持通过模糊key匹配进行批量删除，因此需要通过要操作的缓存key前缀找到key列表，再进行批量删除*/
-            if(StringUtils.isNotEmpty(operateCacheKeyPrefix) && Boolean.TRUE.equals(cacheAnnotation.judgeSpel())){
-                redisTemplate.opsForSet().add(operateCacheKeyPrefix,cacheKey);
+            loadFuture=asyncReturnAdapter.toFuture(proceedingJoinPoint.proceed());
+        }
+        catch (Throwable throwable){
+            loadFuture=new CompletableFuture<>();
+            loadFuture.completeExceptionally(throwable);
+            return loadFuture;
+        }
+        return loadFuture.thenApply(value->{
+            /*写入缓存出错不影响返回方法的结果*/
+            try{
+                cacheLoadedValue(cacheKey,metadata,evaluationContext,value,loadStartTime,true);
+            }
+            catch (Exception exception){
+                logger.error("通过key:{}缓存异步方法的结果出错，原因是{}",cacheKey,exception.getMessage());
             }
+            return value;
+        });
+    }
+
+    /**
+     * 批量查询缓存：集合参数的每个元素对应一个缓存key，一次批量读取，只用未命中的元素调用方法，再批量写回并按参数顺序合并结果
+     */
+    private Object batchQueryCacheOperate(ProceedingJoinPoint proceedingJoinPoint,CacheOperationMetadata metadata,CacheEvaluationContext evaluationContext) throws Throwable {
+        Object[] args=proceedingJoinPoint.getArgs();
+        Collection<?> elements=(Collection<?>)args[metadata.getBatchArgIndex()];
+        if(CollectionUtils.isEmpty(elements)){
+            return proceedingJoinPoint.proceed();
+        }
+        String cacheName=metadata.getCacheName();
+        /*使用前缀版本号时，key前缀包含当前版本号*/
+        String operateCacheKeyPrefix=cacheGenerationManager.isEnabled()
+                ?cacheGenerationManager.getKeyPrefix(metadata.getOperateCacheKeyPrefix()):metadata.getOperateCacheKeyPrefix();
+        /*参数元素对应的缓存key，与参数顺序一致*/
+        List<String> elementKeyList=Lists.newArrayListWithCapacity(elements.size());
+        /*去重后的缓存key与参数元素的映射*/
+        Map<String,Object> elementMap=new LinkedHashMap<>();
+        for(Object element:elements){
+            String cacheKey=cacheKeyBuilder.build(operateCacheKeyPrefix,element);
+            elementKeyList.add(cacheKey);
+            elementMap.putIfAbsent(cacheKey,element);
+        }
+        /*缓存key与缓存值的映射，先从本地缓存中获取*/
+        Map<String,Object> valueMap=new HashMap<>(elementMap.size()<<1);
+        List<String> remoteKeyList=new ArrayList<>();
+        for(String cacheKey:elementMap.keySet()){
+            Object localValue=localCacheManager.get(cacheName,cacheKey);
+            if(Optional.ofNullable(localValue).isPresent()){
+                valueMap.put(cacheKey,localValue);
+            }
+            else{
+                remoteKeyList.add(cacheKey);
+            }
+        }
+        /*本地缓存未命中的key通过一次MGET从redis获取，redis熔断时按未命中处理，只用这些元素调用方法*/
+        if(!remoteKeyList.isEmpty() && redisCircuitBreaker.tryAcquire()){
+            try{
+                List<Object> remoteValueList=redisCircuitBreaker.record(()->multiGetRedisValues(cacheName,remoteKeyList));
+                List<String> hitKeyList=new ArrayList<>();
+                for(int i=0;remoteValueList!=null && i<remoteKeyList.size();i++){
+                    Object remoteValue=cacheValueCodecRegistry.decode(remoteValueList.get(i),metadata.getValueType());
+                    if(Optional.ofNullable(remoteValue).isPresent()){
+                        valueMap.put(remoteKeyList.get(i),remoteValue);
+                        hitKeyList.add(remoteKeyList.get(i));
+                    }
+                }
+                /*命中的key按在redis中的剩余过期时间写入本地缓存*/
+                if(!hitKeyList.isEmpty() && localCacheManager.isEnabled()){
+                    Map<String,Long> remainingMillisMap=multiGetRemainingMillis(cacheName,hitKeyList);
+                    hitKeyList.forEach(cacheKey->putLocalCache(cacheName,cacheKey,valueMap.get(cacheKey),metadata,remainingMillisMap.get(cacheKey)));
+                }
+            }
+            catch (Exception exception){
+                logger.error("通过key:{}批量获取redis对应的value出错，原因是{}",remoteKeyList,exception.getMessage());
+                exception.printStackTrace();
+                return proceedingJoinPoint.proceed();
+            }
+        }
+        List<String> missingKeyList=elementMap.keySet().stream().filter(cacheKey->!valueMap.containsKey(cacheKey)).collect(Collectors.toList());
+        logger.info("批量缓存命中{}个，未命中{}个，方法名：{}",elementMap.size()-missingKeyList.size(),missingKeyList.size(),metadata.getMethodName());
+        if(!missingKeyList.isEmpty()){
+            /*只用未命中的元素调用方法*/
+            Class<?> argType=metadata.getMethod().getParameterTypes()[metadata.getBatchArgIndex()];
+            Collection<Object> missingElements=argType.isAssignableFrom(ArrayList.class)?new ArrayList<>():new LinkedHashSet<>();
+            missingKeyList.forEach(cacheKey->missingElements.add(elementMap.get(cacheKey)));
+            /*全部未命中且参数元素不重复时使用原参数调用，返回值无法对应时可直接返回*/
+            Object[] missingArgs=args;
+            if(missingKeyList.size()!=elements.size()){
+                missingArgs=args.clone();
+                missingArgs[metadata.getBatchArgIndex()]=missingElements;
+            }
+            Object result=proceedingJoinPoint.proceed(missingArgs);
+            Map<String,Object> loadedValueMap=matchBatchResult(result,operateCacheKeyPrefix,missingKeyList,metadata);
+            if(!Optional.ofNullable(loadedValueMap).isPresent()){
+                /*不再次调用方法，避免重复查询和重复执行副作用*/
+                logger.warn("方法{}的返回值无法与参数元素对应，不写入缓存",metadata.getMethodName());
+                return mergeUnmatchedBatchResult(metadata,elements,elementKeyList,valueMap,result);
+            }
+            valueMap.putAll(loadedValueMap);
+            writeBatchValues(missingKeyList,loadedValueMap,metadata,evaluationContext);
+        }
+        return mergeBatchResult(metadata,elements,elementKeyList,valueMap);
+    }
+
+    /**
+     * 将方法返回值与未命中的缓存key对应：Map按key对应，集合按batchResultKey表达式或顺序对应，无法对应时返回null
+     */
+    private Map<String,Object> matchBatchResult(Object result,String operateCacheKeyPrefix,List<String> missingKeyList,
+                                                CacheOperationMetadata metadata){
+        Map<String,Object> loadedValueMap=new HashMap<>(missingKeyList.size()<<1);
+        if(!Optional.ofNullable(result).isPresent()){
+            return loadedValueMap;
+        }
+        if(result instanceof Map){
+            ((Map<?,?>)result).forEach((element,value)->loadedValueMap.put(cacheKeyBuilder.build(operateCacheKeyPrefix,element),value));
+            return loadedValueMap;
+        }
+        if(!(result instanceof Collection)){
+            return null;
+        }
+        Collection<?> resultCollection=(Collection<?>)result;
+        Expression batchResultKeyExpression=metadata.getBatchResultKeyExpression();
+        if(Optional.ofNullable(batchResultKeyExpression).isPresent()){
+            for(Object value:resultCollection){
+                if(Optional.ofNullable(value).isPresent()){
+                    loadedValueMap.put(cacheKeyBuilder.build(operateCacheKeyPrefix,batchResultKeyExpression.getValue(value)),value);
+                }
+            }
+            return loadedValueMap;
+        }
+        /*未配置batchResultKey时，返回值需与未命中的元素数量一致并按顺序对应*/
+        if(resultCollection.size()!=missingKeyList.size()){
+            return null;
+        }
+        Iterator<String> keyIterator=missingKeyList.iterator();
+        resultCollection.forEach(value->loadedValueMap.put(keyIterator.next(),value));
+        return loadedValueMap;
+    }
+
+    /**
+     * 将加载的值写入本地缓存，并通过一次pipeline批量写入redis
+     */
+    private void writeBatchValues(List<String> missingKeyList,Map<String,Object> loadedValueMap,CacheOperationMetadata metadata,
+                                  CacheEvaluationContext evaluationContext){
+        String cacheName=metadata.getCacheName();
+        String operateCacheKeyPrefix=metadata.getOperateCacheKeyPrefix();
+        boolean cacheNull=metadata.getCacheAnnotation().cacheNull() || cacheProperties.isCacheNullValues();
+        /*缓存key与写入的缓存值、缓存时长的映射*/
+        Map<String,Object> cacheValueMap=new LinkedHashMap<>();
+        Map<String,Long> storeMillisMap=new HashMap<>(missingKeyList.size()<<1);
+        for(String cacheKey:missingKeyList){
+            Object value=loadedValueMap.get(cacheKey);
+            if(!Optional.ofNullable(value).isPresent()){
+                /*方法未返回该元素的值，允许缓存空值时写入空值占位对象*/
+                if(cacheNull){
+                    cacheValueMap.put(cacheKey,NullValue.INSTANCE);
+                    storeMillisMap.put(cacheKey,metadata.getNullValueExpirationMillis());
+                }
+                continue;
+            }
+            /*满足排除缓存条件的元素不写入缓存*/
+            if(isUnlessMatched(metadata,evaluationContext,value)){
+                continue;
+            }
+            cacheValueMap.put(cacheKey,value);
+            /*每个key使用不同的随机缓存时长，避免同时过期*/
+            storeMillisMap.put(cacheKey,getRandomDurationMillis(metadata));
+        }
+        if(cacheValueMap.isEmpty()){
+            return;
+        }
+        cacheValueMap.forEach((cacheKey,cacheValue)->localCacheManager.put(cacheName,cacheKey,cacheValue,storeMillisMap.get(cacheKey)));
+        /*redis熔断时只写入本地缓存，写入依附于本次批量查询，不再占用半开状态的试探请求*/
+        if(redisCircuitBreaker.isOpen()){
+            logger.debug("redis熔断中，通过key:{}只写入本地缓存",cacheValueMap.keySet());
+            return;
+        }
+        replicaReadRouter.recordWrite(cacheValueMap.keySet());
+        try{
+            redisCircuitBreaker.recordWithoutPermit(()->{
+                RedisTemplate<String,Object> cacheNameRedisTemplate=cacheNameRedisRouter.getRedisTemplate(cacheName);
+                if(cacheNameRedisTemplate==null && !cacheShardRouter.isEnabled()){
+                    executeBatchWrite(redisTemplate,createBatchWriteCallback(cacheValueMap.keySet(),cacheValueMap,storeMillisMap,metadata,true));
+                }
+                else{
+                    if(cacheNameRedisTemplate!=null){
+                        executeBatchWrite(cacheNameRedisTemplate,createBatchWriteCallback(cacheValueMap.keySet(),cacheValueMap,storeMillisMap,metadata,false));
+                    }
+                    else{
+                        /*客户端分片时各分片并行通过pipeline写入*/
+                        cacheShardRouter.executeByShard(cacheValueMap.keySet(),(shard,shardKeyList)->shard.executePipelined(
+                                createBatchWriteCallback(shardKeyList,cacheValueMap,storeMillisMap,metadata,false)));
+                    }
+                    /*前缀索引写入yinaicheng.cache.redis*/
+                    if(StringUtils.isNotEmpty(operateCacheKeyPrefix) && isPrefixIndexRequired()){
+                        redisTemplate.executePipelined(createBatchWriteCallback(Collections.emptyList(),cacheValueMap,storeMillisMap,metadata,true));
+                    }
+                }
+                return null;
+            });
         }
         catch (Exception exception){
-            logger.error("通过key:{}往redis插入对应的value出错，原因是{}",cacheKey,exception.getMessage());
+            logger.error("通过key:{}往redis批量插入对应的value出错，原因是{}",cacheValueMap.keySet(),exception.getMessage());
             exception.printStackTrace();
         }
-        return value;
     }
 
-    private List<String> getNeedToOperateCacheKey(ProceedingJoinPoint proceedingJoinPoint,Method method){
-        /*获取该方法的缓存注解*/
-        CacheAnnotation cacheAnnotation=method.getAnnotation(CacheAnnotation.class);
-        String key;
-        /*获取该注解上的值，即缓存的key*/
-        String[] cacheKeyArray=cacheAnnotation.operateCacheKey();
+    /**
+     * 创建批量写入缓存值的回调，indexed为true时同时将全部key登记到前缀索引中
+     */
+    private SessionCallback<Object> createBatchWriteCallback(Collection<String> cacheKeys,Map<String,Object> cacheValueMap,
+                                                             Map<String,Long> storeMillisMap,CacheOperationMetadata metadata,
+                                                             boolean indexed){
+        String cacheName=metadata.getCacheName();
+        String operateCacheKeyPrefix=metadata.getOperateCacheKeyPrefix();
+        return new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String,Object> redisOperations=(RedisOperations<String,Object>)operations;
+                cacheKeys.forEach(cacheKey->redisOperations.opsForValue().set(cacheKey,
+                        cacheValueCodecRegistry.wrap(cacheName,cacheValueMap.get(cacheKey),metadata.getValueType()),
+                        storeMillisMap.get(cacheKey),TimeUnit.MILLISECONDS));
+                /*批量缓存的key同样登记到前缀索引中，以便按前缀删除*/
+                if(indexed && StringUtils.isNotEmpty(operateCacheKeyPrefix) && isPrefixIndexRequired()){
+                    long now=System.currentTimeMillis();
+                    Map<String,Long> expireAtMap=new HashMap<>(storeMillisMap.size()<<1);
+                    storeMillisMap.forEach((cacheKey,storeMillis)->expireAtMap.put(cacheKey,now+storeMillis));
+                    prefixKeyIndex.add(redisOperations,operateCacheKeyPrefix,expireAtMap);
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * 通过pipeline执行批量写入，Jedis集群连接不支持pipeline，改为在同一连接上逐条写入
+     */
+    private void executeBatchWrite(RedisTemplate<String,Object> template,SessionCallback<Object> sessionCallback){
+        if(isJedisCluster(template)){
+            template.execute(sessionCallback);
+        }
+        else{
+            template.executePipelined(sessionCallback);
+        }
+    }
+
+    /**
+     * 是否通过Jedis连接Redis集群
+     */
+    private boolean isJedisCluster(RedisTemplate<String,Object> template){
+        RedisConnectionFactory connectionFactory=template.getConnectionFactory();
+        return connectionFactory instanceof JedisConnectionFactory && ((JedisConnectionFactory)connectionFactory).isRedisClusterAware();
+    }
+
+    /**
+     * 按参数顺序合并缓存值和加载的值，返回值类型为Map时以参数元素为key，空值不放入结果
+     */
+    private Object mergeBatchResult(CacheOperationMetadata metadata,Collection<?> elements,List<String> elementKeyList,Map<String,Object> valueMap){
+        Class<?> returnType=metadata.getMethod().getReturnType();
+        Iterator<String> keyIterator=elementKeyList.iterator();
+        if(returnType.isAssignableFrom(LinkedHashMap.class)){
+            Map<Object,Object> resultMap=new LinkedHashMap<>();
+            for(Object element:elements){
+                Object value=unwrapCacheValue(valueMap.get(keyIterator.next()));
+                if(Optional.ofNullable(value).isPresent()){
+                    resultMap.put(element,value);
+                }
+            }
+            return resultMap;
+        }
+        Collection<Object> resultCollection=returnType.isAssignableFrom(ArrayList.class)?new ArrayList<>():new LinkedHashSet<>();
+        for(Object element:elements){
+            Object value=unwrapCacheValue(valueMap.get(keyIterator.next()));
+            if(Optional.ofNullable(value).isPresent()){
+                resultCollection.add(value);
+            }
+        }
+        return resultCollection;
+    }
+
+    /**
+     * 返回值无法与参数元素对应时的结果：没有缓存命中的元素时返回本次调用的结果，
+     * 否则在按参数顺序合并的缓存值之后追加本次调用返回的元素
+     */
+    @SuppressWarnings("unchecked")
+    private Object mergeUnmatchedBatchResult(CacheOperationMetadata metadata,Collection<?> elements,List<String> elementKeyList,
+                                             Map<String,Object> valueMap,Object result){
+        if(valueMap.isEmpty() || !(result instanceof Collection)){
+            return result;
+        }
+        Object mergedResult=mergeBatchResult(metadata,elements,elementKeyList,valueMap);
+        if(!(mergedResult instanceof Collection)){
+            return result;
+        }
+        ((Collection<Object>)mergedResult).addAll((Collection<?>)result);
+        return mergedResult;
+    }
+
+    /**
+     * 是否需要将缓存key登记到前缀索引中，仅INDEX策略按索引删除
+     */
+    private boolean isPrefixIndexRequired(){
+        return cacheProperties.getPrefixInvalidationStrategy()==PrefixInvalidationStrategyEnum.INDEX;
+    }
+
+    /**
+     * 获取缓存时长（毫秒），在注解配置的时长和两倍时长之间随机取值，避免大量key同时过期
+     */
+    private long getRandomDurationMillis(CacheOperationMetadata metadata){
+        int duration=metadata.getDuration();
+        return TimeUnit.MINUTES.toMillis(NumberUtils.GENERATE_INTEGER_VALUE_FUNCTION.apply(new int[]{duration,duration<<1}));
+    }
+
+    private List<String> getNeedToOperateCacheKey(CacheOperationMetadata metadata,EvaluationContext evaluationContext){
+        /*不使用spel表达式时，缓存key在解析元数据时已经生成*/
+        if(!metadata.isJudgeSpel()){
+            return metadata.getLiteralKeys();
+        }
         /*获取缓存key前缀值*/
-        String operateCacheKeyPrefix=cacheAnnotation.operateCacheKeyPrefix();
-        /*根据key的规则，通过springEL表达式进行解析*/
-        boolean judgeSpel=cacheAnnotation.judgeSpel();
-        List<String> keyList= Lists.newArrayList();
-        switch(String.valueOf(judgeSpel))
-        {
-            /*使用spel表达式*/
-            case "true":
-                ExpressionParser expressionParser=new SpelExpressionParser();
-                /*设置解析上下文（有哪些占位符，以及每种占位符的值）*/
-                EvaluationContext evaluationContext=new StandardEvaluationContext();
-                /*spring的参数解析*/
-                DefaultParameterNameDiscoverer defaultParameterNameDiscoverer=new DefaultParameterNameDiscoverer();
-                /*获取方法参数名*/
-                String[] parameterNames=Optional.ofNullable(defaultParameterNameDiscoverer.getParameterNames(method)).orElse(new String[0]);
-                /*所有参数值*/
-                Object[] args=proceedingJoinPoint.getArgs();
-                for(int i = 0; i< parameterNames.length; i++){
-                    evaluationContext.setVariable(parameterNames[i],Optional.ofNullable(args[i]).isPresent()?String.valueOf(args[i]):null);
-                }
-                for(String cacheKey:cacheKeyArray){
-                    /*创建SPEL解析器*/
-                    /*解析SPEL表达式*/
-                    Expression expression=expressionParser.parseExpression(cacheKey);
-                    /*获取缓存值的key*/
-                    keyList.add(operateCacheKeyPrefix.concat(CONVERT_OBJECT_TO_STRING.apply(expression.getValue(evaluationContext),"String").replaceAll(" ", StringUtils.EMPTY).replaceAll("\\s*",StringUtils.EMPTY)));
-                }
-                break;
-            /*不使用spel表达式*/
-            case "false":
-            default:
-                for(String cacheKey:cacheKeyArray){
-                    /*获取缓存值的key*/
-                    keyList.add(operateCacheKeyPrefix.concat(cacheKey.replaceAll(" ", StringUtils.EMPTY).replaceAll("\\s*",StringUtils.EMPTY)));
-                }
-                break;
+        String operateCacheKeyPrefix=metadata.getOperateCacheKeyPrefix();
+        List<String> keyList= Lists.newArrayListWithCapacity(metadata.getKeyExpressions().size());
+        for(Expression expression:metadata.getKeyExpressions()){
+            /*获取缓存值的key，一次遍历完成空白字符过滤和前缀拼接*/
+            keyList.add(cacheKeyBuilder.build(operateCacheKeyPrefix,expression.getValue(evaluationContext)));
         }
         return keyList;
     }
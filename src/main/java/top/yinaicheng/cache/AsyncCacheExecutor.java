@@ -0,0 +1,105 @@
+package top.yinaicheng.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import top.yinaicheng.config.CacheProperties;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 异步方法的缓存读写线程池，在后台线程访问redis，不阻塞调用线程；redis未命中时在独立的加载线程池中调用方法，
+ * 方法在返回异步结果前的同步部分不占用读写redis的线程
+ * @author yinaicheng
+ */
+@Component
+public class AsyncCacheExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncCacheExecutor.class);
+
+    private final ThreadPoolExecutor asyncExecutor;
+
+    private final Executor loadExecutor;
+
+    /**
+     * 未配置加载线程池bean时创建的线程池，关闭时一并关闭
+     */
+    private final ThreadPoolExecutor ownLoadExecutor;
+
+    @Autowired
+    public AsyncCacheExecutor(CacheProperties cacheProperties, BeanFactory beanFactory) {
+        CacheProperties.AsyncProperties async = cacheProperties.getAsync();
+        this.asyncExecutor = createExecutor(async, "cache-async-%d");
+        if (StringUtils.hasText(async.getLoadExecutor())) {
+            this.ownLoadExecutor = null;
+            this.loadExecutor = beanFactory.getBean(async.getLoadExecutor(), Executor.class);
+        } else {
+            this.ownLoadExecutor = createExecutor(async, "cache-async-load-%d");
+            this.loadExecutor = ownLoadExecutor;
+        }
+    }
+
+    /**
+     * 在后台线程执行并返回结果，线程池已满时返回失败的future
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, asyncExecutor);
+        } catch (RejectedExecutionException exception) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(exception);
+            return future;
+        }
+    }
+
+    /**
+     * 在加载线程池中调用方法并返回其异步结果，线程池已满时返回失败的future
+     */
+    public <T> CompletableFuture<T> load(Supplier<CompletableFuture<T>> loader) {
+        try {
+            return CompletableFuture.supplyAsync(loader, loadExecutor).thenCompose(Function.identity());
+        } catch (RejectedExecutionException exception) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(exception);
+            return future;
+        }
+    }
+
+    /**
+     * 在后台线程执行，线程池已满时忽略
+     */
+    public void execute(String key, Runnable task) {
+        try {
+            asyncExecutor.execute(task);
+        } catch (RejectedExecutionException exception) {
+            logger.warn("异步缓存线程池已满，忽略key:{}的redis写入", key);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        asyncExecutor.shutdown();
+        if (ownLoadExecutor != null) {
+            ownLoadExecutor.shutdown();
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor(CacheProperties.AsyncProperties async, String nameFormat) {
+        return new ThreadPoolExecutor(async.getCorePoolSize(), async.getMaxPoolSize(),
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(async.getQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,96 @@
+package top.yinaicheng.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 缓存异步刷新器，使用有界线程池在后台重新加载缓存，异步方法的缓存在其异步结果上刷新，同一key同时只有一个刷新任务
+ * @author yinaicheng
+ */
+@Component
+public class AsyncCacheRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncCacheRefresher.class);
+
+    private final ThreadPoolExecutor refreshExecutor;
+
+    /**
+     * 正在刷新的key
+     */
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public AsyncCacheRefresher(CacheProperties cacheProperties) {
+        CacheProperties.RefreshProperties refresh = cacheProperties.getRefresh();
+        this.refreshExecutor = new ThreadPoolExecutor(refresh.getCorePoolSize(), refresh.getMaxPoolSize(),
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(refresh.getQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("cache-refresh-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 提交刷新任务，该key已在刷新或线程池已满时忽略
+     */
+    public void refresh(String key, SingleFlightLoader.ValueLoader valueLoader) {
+        if (!refreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    valueLoader.load();
+                } catch (Throwable throwable) {
+                    logger.error("异步刷新key:{}出错，原因是{}", key, throwable.getMessage());
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            refreshingKeys.remove(key);
+            logger.warn("异步刷新线程池已满，忽略key:{}的刷新", key);
+        }
+    }
+
+    /**
+     * 刷新异步方法的缓存，该key已在刷新时忽略；加载在调用方提供的异步结果上完成，不占用刷新线程池的线程
+     * @param futureLoader 开始加载并返回异步结果
+     */
+    public void refreshAsync(String key, Supplier<? extends CompletableFuture<?>> futureLoader) {
+        if (!refreshingKeys.add(key)) {
+            return;
+        }
+        CompletableFuture<?> loadFuture;
+        try {
+            loadFuture = futureLoader.get();
+        } catch (Throwable throwable) {
+            refreshingKeys.remove(key);
+            logger.error("异步刷新key:{}出错，原因是{}", key, throwable.getMessage());
+            return;
+        }
+        loadFuture.whenComplete((value, throwable) -> {
+            refreshingKeys.remove(key);
+            if (throwable != null) {
+                logger.error("异步刷新key:{}出错，原因是{}", key, throwable.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+}
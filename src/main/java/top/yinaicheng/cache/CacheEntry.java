@@ -0,0 +1,71 @@
+package top.yinaicheng.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 缓存值信封，记录加载耗时和逻辑过期时间，用于提前刷新
+ * @author yinaicheng
+ */
+public class CacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存的值
+     */
+    private Object value;
+
+    /**
+     * 加载耗时（毫秒）
+     */
+    private long loadCost;
+
+    /**
+     * 逻辑过期时间，从1970-01-01T00:00:00Z至今的毫秒数
+     */
+    private long expireAt;
+
+    public CacheEntry() {
+    }
+
+    public CacheEntry(Object value, long loadCost, long expireAt) {
+        this.value = value;
+        this.loadCost = loadCost;
+        this.expireAt = expireAt;
+    }
+
+    /**
+     * XFetch算法：越接近过期时间、加载耗时越长，提前刷新的概率越大
+     * @param beta 大于1时更倾向提前刷新，小于1时更倾向推迟刷新
+     */
+    public boolean isEarlyRefreshDue(double beta) {
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return System.currentTimeMillis() - loadCost * beta * Math.log(random) >= expireAt;
+    }
+
+    // Getters and Setters
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public long getLoadCost() {
+        return loadCost;
+    }
+
+    public void setLoadCost(long loadCost) {
+        this.loadCost = loadCost;
+    }
+
+    public long getExpireAt() {
+        return expireAt;
+    }
+
+    public void setExpireAt(long expireAt) {
+        this.expireAt = expireAt;
+    }
+}
@@ -0,0 +1,57 @@
+package top.yinaicheng.cache;
+
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.support.ReflectiveConstructorResolver;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.expression.spel.support.StandardTypeLocator;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 缓存表达式的解析上下文，参数名直接绑定原始参数对象，方法返回值绑定为#result；
+ * 每次调用只创建一次，condition、key和unless共用，属性访问器和方法解析器在所有上下文间共享，反射查找的结果只缓存一份
+ * @author yinaicheng
+ */
+public class CacheEvaluationContext extends StandardEvaluationContext {
+
+    /**
+     * 方法返回值的变量名
+     */
+    public static final String RESULT_VARIABLE = "result";
+
+    private static final List<PropertyAccessor> PROPERTY_ACCESSORS =
+            Collections.singletonList(new ReflectivePropertyAccessor());
+
+    private static final List<MethodResolver> METHOD_RESOLVERS =
+            Collections.singletonList(new ReflectiveMethodResolver());
+
+    private static final List<ConstructorResolver> CONSTRUCTOR_RESOLVERS =
+            Collections.singletonList(new ReflectiveConstructorResolver());
+
+    private static final StandardTypeLocator TYPE_LOCATOR = new StandardTypeLocator();
+
+    public CacheEvaluationContext(CacheExpressionRootObject rootObject, String[] parameterNames) {
+        super(rootObject);
+        setPropertyAccessors(PROPERTY_ACCESSORS);
+        setMethodResolvers(METHOD_RESOLVERS);
+        setConstructorResolvers(CONSTRUCTOR_RESOLVERS);
+        setTypeLocator(TYPE_LOCATOR);
+        Object[] args = rootObject.getArgs();
+        int length = Math.min(parameterNames.length, args.length);
+        for (int i = 0; i < length; i++) {
+            setVariable(parameterNames[i], args[i]);
+        }
+    }
+
+    /**
+     * 绑定方法返回值
+     */
+    public void setResult(Object result) {
+        setVariable(RESULT_VARIABLE, result);
+    }
+}
@@ -0,0 +1,42 @@
+package top.yinaicheng.cache;
+
+import java.lang.reflect.Method;
+
+/**
+ * 缓存表达式的根对象，可通过#root.args、#root.method等访问调用信息
+ * @author yinaicheng
+ */
+public class CacheExpressionRootObject {
+
+    private final Method method;
+
+    private final Object[] args;
+
+    private final Object target;
+
+    public CacheExpressionRootObject(Method method, Object[] args, Object target) {
+        this.method = method;
+        this.args = args;
+        this.target = target;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getMethodName() {
+        return method.getName();
+    }
+
+    public Object[] getArgs() {
+        return args;
+    }
+
+    public Object getTarget() {
+        return target;
+    }
+
+    public Class<?> getTargetClass() {
+        return target.getClass();
+    }
+}
@@ -0,0 +1,142 @@
+package top.yinaicheng.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.constant.PrefixInvalidationStrategyEnum;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存key前缀版本号管理器：按前缀删除缓存时版本号加一，实际的缓存key包含版本号，旧版本的key随过期时间自然淘汰
+ * @author yinaicheng
+ */
+@Component
+public class CacheGenerationManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheGenerationManager.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final CacheProperties cacheProperties;
+
+    private final RedisCircuitBreaker redisCircuitBreaker;
+
+    /**
+     * 前缀与本地缓存的版本号的映射
+     */
+    private final Map<String, Generation> generationMap = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CacheGenerationManager(@Qualifier("data_governance_redis") RedisTemplate<String, Object> redisTemplate,
+                                  CacheProperties cacheProperties, RedisCircuitBreaker redisCircuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.cacheProperties = cacheProperties;
+        this.redisCircuitBreaker = redisCircuitBreaker;
+    }
+
+    /**
+     * 是否使用前缀版本号删除缓存
+     */
+    public boolean isEnabled() {
+        return cacheProperties.getPrefixInvalidationStrategy() == PrefixInvalidationStrategyEnum.GENERATION;
+    }
+
+    /**
+     * 获取包含当前版本号的实际key前缀，前缀为空时原样返回
+     */
+    public String getKeyPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return prefix;
+        }
+        return prefix.concat("g").concat(String.valueOf(getGeneration(prefix))).concat(":");
+    }
+
+    /**
+     * 将以前缀开头的缓存key转换为包含当前版本号的实际key
+     */
+    public String toPhysicalKey(String prefix, String cacheKey) {
+        if (prefix == null || prefix.isEmpty() || !cacheKey.startsWith(prefix)) {
+            return cacheKey;
+        }
+        return getKeyPrefix(prefix).concat(cacheKey.substring(prefix.length()));
+    }
+
+    /**
+     * 前缀版本号加一，该前缀下已缓存的key全部失效
+     */
+    public void increment(String prefix) {
+        Long generation = redisTemplate.opsForValue().increment(getGenerationKey(prefix));
+        if (generation != null) {
+            generationMap.put(prefix, new Generation(generation, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * 丢弃本地缓存的前缀版本号，下次使用时从redis重新读取，其他节点更新版本号后调用
+     */
+    public void expire(Collection<String> prefixes) {
+        prefixes.forEach(generationMap::remove);
+    }
+
+    /**
+     * 丢弃本地缓存的全部前缀版本号
+     */
+    public void expireAll() {
+        generationMap.clear();
+    }
+
+    /**
+     * 获取前缀的版本号，本地缓存超过刷新间隔后从redis重新读取；redis熔断或读取失败时沿用本地的版本号，
+     * 并在下一个刷新间隔内不再读取，避免每次请求都访问不可用的redis
+     */
+    private long getGeneration(String prefix) {
+        Generation generation = generationMap.get(prefix);
+        long now = System.currentTimeMillis();
+        if (generation != null && now - generation.loadTime < cacheProperties.getGenerationRefreshInterval()) {
+            return generation.value;
+        }
+        long staleValue = generation == null ? 0L : generation.value;
+        if (redisCircuitBreaker.isOpen()) {
+            generationMap.put(prefix, new Generation(staleValue, now));
+            return staleValue;
+        }
+        try {
+            /*版本号读取依附于本次缓存操作，不占用半开状态的试探请求*/
+            Object value = redisCircuitBreaker.recordWithoutPermit(() -> redisTemplate.opsForValue().get(getGenerationKey(prefix)));
+            long generationValue = Optional.ofNullable(value).map(element -> Long.parseLong(String.valueOf(element))).orElse(0L);
+            generationMap.put(prefix, new Generation(generationValue, now));
+            return generationValue;
+        } catch (Exception exception) {
+            logger.error("获取前缀{}的版本号出错，原因是{}", prefix, exception.getMessage());
+            generationMap.put(prefix, new Generation(staleValue, now));
+            return staleValue;
+        }
+    }
+
+    private String getGenerationKey(String prefix) {
+        return cacheProperties.getKeyPrefix().concat("generation:").concat(prefix);
+    }
+
+    /**
+     * 本地缓存的版本号及其读取时间
+     */
+    private static class Generation {
+
+        private final long value;
+
+        private final long loadTime;
+
+        Generation(long value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package top.yinaicheng.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.utils.encrypt.MD5Utils;
+
+/**
+ * 缓存key生成器：一次遍历完成空白字符过滤和前缀拼接，复用线程内的缓冲区，超长key摘要为固定长度
+ * @author yinaicheng
+ */
+@Component
+public class CacheKeyBuilder {
+
+    /**
+     * 表达式结果为null时使用的key，与原有转换逻辑保持一致
+     */
+    private static final String NULL_KEY = "String";
+
+    /**
+     * 超长key摘要部分的标记，避免与正常key冲突
+     */
+    private static final String DIGEST_MARKER = "md5:";
+
+    /**
+     * 缓冲区超过该容量后不再复用，避免个别超长key长期占用内存
+     */
+    private static final int MAX_BUFFER_CAPACITY = 4096;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final int maxKeyLength;
+
+    private final boolean hashTagPrefix;
+
+    @Autowired
+    public CacheKeyBuilder(CacheProperties cacheProperties) {
+        this.maxKeyLength = cacheProperties.getMaxKeyLength();
+        this.hashTagPrefix = cacheProperties.isHashTagPrefix();
+    }
+
+    /**
+     * 开启hash tag时将前缀包在{}中，Redis集群只按{}内的部分计算槽，同一前缀的key落在同一个槽；
+     * 前缀为空或已包含hash tag时原样返回
+     */
+    public String tagPrefix(String prefix) {
+        if (!hashTagPrefix || prefix == null || prefix.isEmpty() || hasHashTag(prefix)) {
+            return prefix;
+        }
+        return "{".concat(prefix).concat("}");
+    }
+
+    /**
+     * 是否包含非空的hash tag，与Redis集群计算槽的规则一致
+     */
+    static boolean hasHashTag(String key) {
+        int start = key.indexOf('{');
+        return start >= 0 && key.indexOf('}', start + 1) > start + 1;
+    }
+
+    /**
+     * 拼接前缀和表达式的计算结果，去除其中的空白字符，超长时保留前缀并摘要其余部分
+     * @param prefix 缓存key前缀
+     * @param keyValue 表达式的计算结果或批量缓存的参数元素
+     */
+    public String build(String prefix, Object keyValue) {
+        /*与原有转换逻辑保持一致：值为null或"null"时使用默认key*/
+        CharSequence text = keyValue instanceof CharSequence ? (CharSequence) keyValue : String.valueOf(keyValue);
+        return buildKey(prefix, keyValue == null || "null".contentEquals(text) ? NULL_KEY : text);
+    }
+
+    /**
+     * 拼接前缀和注解中的字面量key，去除其中的空白字符，字面量key不做null转换，与原有逻辑保持一致
+     */
+    public String buildLiteral(String prefix, String literalKey) {
+        return buildKey(prefix, literalKey);
+    }
+
+    private String buildKey(String prefix, CharSequence text) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.append(prefix);
+        int prefixLength = buffer.length();
+        appendWithoutWhitespace(buffer, text);
+        String key;
+        if (maxKeyLength > 0 && buffer.length() > maxKeyLength) {
+            key = prefix.concat(DIGEST_MARKER).concat(MD5Utils.createSign(buffer.substring(prefixLength)));
+        } else {
+            key = buffer.toString();
+        }
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            BUFFER.remove();
+        }
+        return key;
+    }
+
+    /**
+     * 追加时跳过空白字符，与正则\s匹配的字符一致
+     */
+    private void appendWithoutWhitespace(StringBuilder buffer, CharSequence value) {
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (!isWhitespace(c)) {
+                buffer.append(c);
+            }
+        }
+    }
+
+    private boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
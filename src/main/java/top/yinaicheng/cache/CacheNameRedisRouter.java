@@ -0,0 +1,62 @@
+package top.yinaicheng.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.config.RedisConnectionFactoryRegistry;
+import top.yinaicheng.constant.RedisModeEnum;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按cacheName选择Redis：配置了yinaicheng.cache.names.&lt;cacheName&gt;.redis的缓存读写单独的Redis，未配置的连接项沿用yinaicheng.cache.redis，
+ * 访问量大的缓存不会占用其他缓存的连接和内存
+ * @author yinaicheng
+ */
+@Component
+public class CacheNameRedisRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheNameRedisRouter.class);
+
+    /**
+     * cacheName与单独使用的RedisTemplate的映射
+     */
+    private final Map<String, RedisTemplate<String, Object>> redisTemplateMap = new HashMap<>();
+
+    @Autowired
+    public CacheNameRedisRouter(RedisConnectionFactoryRegistry redisConnectionFactoryRegistry, CacheProperties cacheProperties) {
+        cacheProperties.getNames().forEach((cacheName, nameProperties) -> {
+            if (nameProperties.getRedis() == null || !nameProperties.getRedis().isEnabled()) {
+                return;
+            }
+            CacheProperties.RedisCacheProperties redis = nameProperties.getRedis().merge(cacheProperties.getRedis());
+            if (redis.getMode() == RedisModeEnum.SHARDED) {
+                logger.warn("缓存{}单独使用的Redis不支持客户端分片，只使用host和port指定的节点", cacheName);
+            }
+            RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+            redisTemplate.setConnectionFactory(redisConnectionFactoryRegistry.getConnectionFactory(redis));
+            redisTemplate.afterPropertiesSet();
+            redisTemplateMap.put(cacheName, redisTemplate);
+        });
+    }
+
+    /**
+     * 获取cacheName单独使用的RedisTemplate，未单独配置时返回null
+     */
+    public RedisTemplate<String, Object> getRedisTemplate(String cacheName) {
+        return redisTemplateMap.get(cacheName);
+    }
+
+    /**
+     * 全部单独使用的RedisTemplate
+     */
+    public Collection<RedisTemplate<String, Object>> getRedisTemplates() {
+        return Collections.unmodifiableCollection(redisTemplateMap.values());
+    }
+}
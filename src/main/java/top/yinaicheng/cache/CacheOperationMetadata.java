@@ -0,0 +1,226 @@
+package top.yinaicheng.cache;
+
+import org.springframework.expression.Expression;
+import top.yinaicheng.annotation.CacheAnnotation;
+import top.yinaicheng.cache.async.AsyncReturnAdapter;
+import top.yinaicheng.constant.CachedOperationTypeEnum;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存方法的元数据，每个（目标类，方法）只解析一次，调用时直接使用
+ * @author yinaicheng
+ */
+public class CacheOperationMetadata {
+
+    /**
+     * 目标类上的方法
+     */
+    private final Method method;
+
+    /**
+     * 方法上的缓存注解
+     */
+    private final CacheAnnotation cacheAnnotation;
+
+    /**
+     * 目标类名.方法名，用于日志
+     */
+    private final String methodName;
+
+    /**
+     * 方法参数名
+     */
+    private final String[] parameterNames;
+
+    /**
+     * 缓存key前缀，开启hash tag时为包在{}中的前缀
+     */
+    private final String operateCacheKeyPrefix;
+
+    /**
+     * 已解析的缓存key表达式，仅在使用spel表达式时有效
+     */
+    private final List<Expression> keyExpressions;
+
+    /**
+     * 完整的缓存key，仅在不使用spel表达式时有效
+     */
+    private final List<String> literalKeys;
+
+    /**
+     * 已解析的缓存条件表达式，未配置时为null
+     */
+    private final Expression conditionExpression;
+
+    /**
+     * 已解析的排除缓存条件表达式，未配置时为null
+     */
+    private final Expression unlessExpression;
+
+    /**
+     * 是否为批量缓存方法，注解配置了合法的集合参数下标和返回值类型时为true
+     */
+    private final boolean batch;
+
+    /**
+     * 已解析的批量结果key表达式，未配置时为null
+     */
+    private final Expression batchResultKeyExpression;
+
+    /**
+     * 已解析泛型的缓存值类型，批量缓存方法为返回值中元素的类型，异步方法为异步结果的类型，无法完整解析时为null
+     */
+    private final Type valueType;
+
+    /**
+     * 异步返回值适配器，返回值不是异步类型时为null
+     */
+    private final AsyncReturnAdapter asyncReturnAdapter;
+
+    /**
+     * 缓存时长（分钟），按cacheName配置的缓存时长优先于注解
+     */
+    private final int duration;
+
+    /**
+     * 空值的缓存时长（毫秒），按cacheName配置的优先于全局配置
+     */
+    private final long nullValueExpirationMillis;
+
+    public CacheOperationMetadata(Method method, CacheAnnotation cacheAnnotation, String methodName, String[] parameterNames,
+                                  String operateCacheKeyPrefix, List<Expression> keyExpressions, List<String> literalKeys,
+                                  Expression conditionExpression, Expression unlessExpression,
+                                  boolean batch, Expression batchResultKeyExpression, Type valueType,
+                                  AsyncReturnAdapter asyncReturnAdapter, int duration, long nullValueExpirationMillis) {
+        this.method = method;
+        this.cacheAnnotation = cacheAnnotation;
+        this.methodName = methodName;
+        this.parameterNames = parameterNames;
+        this.operateCacheKeyPrefix = operateCacheKeyPrefix;
+        this.keyExpressions = keyExpressions;
+        this.literalKeys = literalKeys;
+        this.conditionExpression = conditionExpression;
+        this.unlessExpression = unlessExpression;
+        this.batch = batch;
+        this.batchResultKeyExpression = batchResultKeyExpression;
+        this.valueType = valueType;
+        this.asyncReturnAdapter = asyncReturnAdapter;
+        this.duration = duration;
+        this.nullValueExpirationMillis = nullValueExpirationMillis;
+    }
+
+    /**
+     * 是否需要解析表达式（缓存key、condition或unless）
+     */
+    public boolean isEvaluationRequired() {
+        return isJudgeSpel() || conditionExpression != null || unlessExpression != null;
+    }
+
+    /**
+     * 创建本次调用的表达式解析上下文
+     */
+    public CacheEvaluationContext createEvaluationContext(Object[] args, Object target) {
+        return new CacheEvaluationContext(new CacheExpressionRootObject(method, args, target), parameterNames);
+    }
+
+    /**
+     * 是否需要使用缓存值信封记录加载耗时和逻辑过期时间
+     */
+    public boolean isCacheEntryRequired() {
+        return cacheAnnotation.earlyRefresh() || cacheAnnotation.staleWhileRevalidate() > 0;
+    }
+
+    /**
+     * 逻辑过期后旧值的宽限时长（毫秒）
+     */
+    public long getStaleWhileRevalidateMillis() {
+        return TimeUnit.SECONDS.toMillis(Math.max(cacheAnnotation.staleWhileRevalidate(), 0));
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public CacheAnnotation getCacheAnnotation() {
+        return cacheAnnotation;
+    }
+
+    public CachedOperationTypeEnum getOperationType() {
+        return cacheAnnotation.cacheOperateType();
+    }
+
+    public String getCacheName() {
+        return cacheAnnotation.cacheName();
+    }
+
+    public String getOperateCacheKeyPrefix() {
+        return operateCacheKeyPrefix;
+    }
+
+    public boolean isJudgeSpel() {
+        return cacheAnnotation.judgeSpel();
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public long getNullValueExpirationMillis() {
+        return nullValueExpirationMillis;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public String[] getParameterNames() {
+        return parameterNames;
+    }
+
+    public List<Expression> getKeyExpressions() {
+        return keyExpressions;
+    }
+
+    public List<String> getLiteralKeys() {
+        return literalKeys;
+    }
+
+    public Expression getConditionExpression() {
+        return conditionExpression;
+    }
+
+    public Expression getUnlessExpression() {
+        return unlessExpression;
+    }
+
+    public boolean isBatch() {
+        return batch;
+    }
+
+    public int getBatchArgIndex() {
+        return cacheAnnotation.batchArgIndex();
+    }
+
+    public Expression getBatchResultKeyExpression() {
+        return batchResultKeyExpression;
+    }
+
+    public Type getValueType() {
+        return valueType;
+    }
+
+    /**
+     * 返回值是否为异步类型（CompletableFuture、CompletionStage或Mono）
+     */
+    public boolean isAsync() {
+        return asyncReturnAdapter != null;
+    }
+
+    public AsyncReturnAdapter getAsyncReturnAdapter() {
+        return asyncReturnAdapter;
+    }
+}
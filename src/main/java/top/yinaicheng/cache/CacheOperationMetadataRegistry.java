@@ -0,0 +1,201 @@
+package top.yinaicheng.cache;
+
+import com.alibaba.fastjson.util.ParameterizedTypeImpl;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.expression.AnnotatedElementKey;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.ResolvableType;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.annotation.CacheAnnotation;
+import top.yinaicheng.cache.async.AsyncReturnAdapter;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.constant.CachedOperationTypeEnum;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存方法元数据注册表，首次调用时解析注解、表达式和参数名，之后只做map查找
+ * @author yinaicheng
+ */
+@Component
+public class CacheOperationMetadataRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheOperationMetadataRegistry.class);
+
+    private final Map<AnnotatedElementKey, CacheOperationMetadata> metadataMap = new ConcurrentHashMap<>();
+
+    /**
+     * 按配置的编译模式解析表达式，MIXED/IMMEDIATE模式下表达式在多次解释执行后被编译为字节码
+     */
+    private final ExpressionParser expressionParser;
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final CacheKeyBuilder cacheKeyBuilder;
+
+    /**
+     * 异步返回值适配器
+     */
+    private final List<AsyncReturnAdapter> asyncReturnAdapters;
+
+    private final CacheProperties cacheProperties;
+
+    @Autowired
+    public CacheOperationMetadataRegistry(CacheProperties cacheProperties, CacheKeyBuilder cacheKeyBuilder,
+                                          List<AsyncReturnAdapter> asyncReturnAdapters) {
+        this.cacheKeyBuilder = cacheKeyBuilder;
+        this.asyncReturnAdapters = asyncReturnAdapters;
+        this.cacheProperties = cacheProperties;
+        this.expressionParser = new SpelExpressionParser(
+                new SpelParserConfiguration(cacheProperties.getSpelCompilerMode(), getClass().getClassLoader()));
+    }
+
+    /**
+     * 获取切点方法的元数据，无法解析时返回null
+     */
+    public CacheOperationMetadata getMetadata(ProceedingJoinPoint proceedingJoinPoint) {
+        Method signatureMethod = ((MethodSignature) proceedingJoinPoint.getSignature()).getMethod();
+        Class<?> targetClass = proceedingJoinPoint.getTarget().getClass();
+        AnnotatedElementKey elementKey = new AnnotatedElementKey(signatureMethod, targetClass);
+        CacheOperationMetadata metadata = metadataMap.get(elementKey);
+        if (metadata != null) {
+            return metadata;
+        }
+        return metadataMap.computeIfAbsent(elementKey, key -> buildMetadata(signatureMethod, targetClass));
+    }
+
+    private CacheOperationMetadata buildMetadata(Method signatureMethod, Class<?> targetClass) {
+        /*返回一个Method对象，它表示的是此Class对象所代表的类的指定公共成员方法*/
+        Method method;
+        try {
+            method = targetClass.getMethod(signatureMethod.getName(), signatureMethod.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            logger.error("获取Method对象对象异常，原因是{}", e.getMessage());
+            return null;
+        }
+        /*获取该方法的缓存注解*/
+        CacheAnnotation cacheAnnotation = Optional.ofNullable(method.getAnnotation(CacheAnnotation.class))
+                .orElse(signatureMethod.getAnnotation(CacheAnnotation.class));
+        if (cacheAnnotation == null) {
+            return null;
+        }
+        String methodName = targetClass.getName().concat(".").concat(method.getName());
+        String[] parameterNames = Optional.ofNullable(parameterNameDiscoverer.getParameterNames(method)).orElse(new String[0]);
+        List<Expression> keyExpressions = new ArrayList<>();
+        List<String> literalKeys = new ArrayList<>();
+        String operateCacheKeyPrefix = cacheKeyBuilder.tagPrefix(cacheAnnotation.operateCacheKeyPrefix());
+        for (String cacheKey : cacheAnnotation.operateCacheKey()) {
+            if (cacheAnnotation.judgeSpel()) {
+                keyExpressions.add(expressionParser.parseExpression(cacheKey));
+            } else {
+                literalKeys.add(cacheKeyBuilder.buildLiteral(operateCacheKeyPrefix, cacheKey));
+            }
+        }
+        boolean batch = isBatchSupported(method, cacheAnnotation);
+        AsyncReturnAdapter asyncReturnAdapter = asyncReturnAdapters.stream()
+                .filter(adapter -> adapter.supports(method.getReturnType())).findFirst().orElse(null);
+        return new CacheOperationMetadata(method, cacheAnnotation, methodName, parameterNames,
+                operateCacheKeyPrefix, Collections.unmodifiableList(keyExpressions), Collections.unmodifiableList(literalKeys),
+                parseOptionalExpression(cacheAnnotation.condition()), parseOptionalExpression(cacheAnnotation.unless()),
+                batch, parseOptionalExpression(cacheAnnotation.batchResultKey()),
+                resolveValueType(method, targetClass, batch, asyncReturnAdapter), asyncReturnAdapter,
+                resolveDuration(cacheAnnotation), resolveNullValueExpirationMillis(cacheAnnotation));
+    }
+
+    /**
+     * 按cacheName配置了缓存时长时使用配置的时长，否则使用注解中的时长
+     */
+    private int resolveDuration(CacheAnnotation cacheAnnotation) {
+        return Optional.ofNullable(cacheProperties.getNames().get(cacheAnnotation.cacheName()))
+                .map(CacheProperties.CacheNameProperties::getDuration).orElse(cacheAnnotation.duration());
+    }
+
+    private long resolveNullValueExpirationMillis(CacheAnnotation cacheAnnotation) {
+        long nullValueExpiration = Optional.ofNullable(cacheProperties.getNames().get(cacheAnnotation.cacheName()))
+                .map(CacheProperties.CacheNameProperties::getNullValueExpiration).orElse(cacheProperties.getNullValueExpiration());
+        return TimeUnit.SECONDS.toMillis(nullValueExpiration);
+    }
+
+    /**
+     * 按目标类解析返回值的泛型，得到缓存值的具体类型（如List&lt;User&gt;），批量缓存方法取元素类型，异步方法取异步结果的类型
+     */
+    private Type resolveValueType(Method method, Class<?> targetClass, boolean batch, AsyncReturnAdapter asyncReturnAdapter) {
+        ResolvableType valueType = ResolvableType.forMethodReturnType(method, targetClass);
+        if (asyncReturnAdapter != null) {
+            valueType = valueType.as(asyncReturnAdapter.getAsyncType()).getGeneric(0);
+        }
+        if (batch) {
+            Class<?> returnType = valueType.resolve(Object.class);
+            valueType = Map.class.isAssignableFrom(returnType) ? valueType.asMap().getGeneric(1)
+                    : valueType.asCollection().getGeneric(0);
+        }
+        return toConcreteType(valueType);
+    }
+
+    /**
+     * 将已解析泛型的类型转换为FastJson可直接使用的类型，存在无法解析的泛型时返回null
+     */
+    private Type toConcreteType(ResolvableType resolvableType) {
+        Class<?> rawClass = resolvableType.resolve();
+        if (rawClass == null || rawClass == Object.class) {
+            return null;
+        }
+        if (!resolvableType.hasGenerics()) {
+            return rawClass;
+        }
+        ResolvableType[] generics = resolvableType.getGenerics();
+        Type[] actualTypeArguments = new Type[generics.length];
+        for (int i = 0; i < generics.length; i++) {
+            actualTypeArguments[i] = toConcreteType(generics[i]);
+            if (actualTypeArguments[i] == null) {
+                return null;
+            }
+        }
+        return new ParameterizedTypeImpl(actualTypeArguments, null, rawClass);
+    }
+
+    /**
+     * 批量模式要求查询缓存操作、可接收List或Set的集合参数以及可接收Map、List或Set的返回值，不满足时按普通缓存处理
+     */
+    private boolean isBatchSupported(Method method, CacheAnnotation cacheAnnotation) {
+        int batchArgIndex = cacheAnnotation.batchArgIndex();
+        if (batchArgIndex < 0) {
+            return false;
+        }
+        boolean supported = cacheAnnotation.cacheOperateType() == CachedOperationTypeEnum.QUERY_CACHE
+                && batchArgIndex < method.getParameterCount()
+                && isCollectionAssignable(method.getParameterTypes()[batchArgIndex])
+                && (method.getReturnType().isAssignableFrom(LinkedHashMap.class) || isCollectionAssignable(method.getReturnType()));
+        if (!supported) {
+            logger.warn("方法{}的批量缓存配置无效，按普通缓存处理", method);
+        }
+        return supported;
+    }
+
+    private boolean isCollectionAssignable(Class<?> type) {
+        return type.isAssignableFrom(ArrayList.class) || type.isAssignableFrom(LinkedHashSet.class);
+    }
+
+    private Expression parseOptionalExpression(String expression) {
+        return expression == null || expression.trim().isEmpty() ? null : expressionParser.parseExpression(expression);
+    }
+}
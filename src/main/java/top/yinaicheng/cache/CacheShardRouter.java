@@ -0,0 +1,171 @@
+package top.yinaicheng.cache;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.config.RedisConnectionFactoryRegistry;
+import top.yinaicheng.constant.RedisModeEnum;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * 缓存客户端分片路由：按一致性哈希环将缓存key分布到多个单机Redis节点，每个节点在环上有多个虚拟节点，
+ * 增删节点时只有相邻区间的key需要重新分布；key包含hash tag时只按hash tag计算，同一前缀的key落在同一个节点
+ * @author yinaicheng
+ */
+@Component
+public class CacheShardRouter {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * 分片节点的RedisTemplate，未使用客户端分片时为空
+     */
+    private final List<RedisTemplate<String, Object>> shards = new ArrayList<>();
+
+    /**
+     * 虚拟节点的哈希值与分片节点的映射
+     */
+    private final TreeMap<Long, RedisTemplate<String, Object>> ring = new TreeMap<>();
+
+    /**
+     * 多个分片的批量操作并行执行的线程池，未使用客户端分片时为null
+     */
+    private final ThreadPoolExecutor shardExecutor;
+
+    @Autowired
+    public CacheShardRouter(RedisConnectionFactoryRegistry redisConnectionFactoryRegistry, CacheProperties cacheProperties) {
+        this(cacheProperties.getRedis().getMode() == RedisModeEnum.SHARDED
+                        ? redisConnectionFactoryRegistry.getShardConnectionFactories(cacheProperties.getRedis()) : Collections.emptyMap(),
+                cacheProperties.getRedis().getVirtualNodes());
+    }
+
+    /**
+     * 按节点地址与连接工厂的映射构建哈希环，映射为空时不使用客户端分片
+     */
+    CacheShardRouter(Map<String, RedisConnectionFactory> shardConnectionFactoryMap, int virtualNodes) {
+        if (shardConnectionFactoryMap.isEmpty()) {
+            this.shardExecutor = null;
+            return;
+        }
+        shardConnectionFactoryMap.forEach((node, connectionFactory) -> {
+            RedisTemplate<String, Object> shard = new RedisTemplate<>();
+            shard.setConnectionFactory(connectionFactory);
+            shard.afterPropertiesSet();
+            shards.add(shard);
+            /*虚拟节点只由节点地址和序号决定，与节点的配置顺序无关*/
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), shard);
+            }
+        });
+        this.shardExecutor = new ThreadPoolExecutor(shards.size(), shards.size(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1024), new ThreadFactoryBuilder().setNameFormat("cache-shard-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 是否使用客户端分片
+     */
+    public boolean isEnabled() {
+        return !ring.isEmpty();
+    }
+
+    /**
+     * 全部分片节点的RedisTemplate
+     */
+    public List<RedisTemplate<String, Object>> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * 获取key所在分片节点的RedisTemplate
+     */
+    public RedisTemplate<String, Object> getShard(String key) {
+        Map.Entry<Long, RedisTemplate<String, Object>> entry = ring.ceilingEntry(hash(getShardKey(key)));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    /**
+     * 按分片节点分组key，保持key的原有顺序
+     */
+    public Map<RedisTemplate<String, Object>, List<String>> groupByShard(Collection<String> keys) {
+        Map<RedisTemplate<String, Object>, List<String>> shardKeyMap = new LinkedHashMap<>();
+        for (String key : keys) {
+            shardKeyMap.computeIfAbsent(getShard(key), shard -> new ArrayList<>()).add(key);
+        }
+        return shardKeyMap;
+    }
+
+    /**
+     * 按分片节点分组key后对各分片并行执行操作，第一个分片在调用线程执行，返回各分片的结果
+     */
+    public <T> List<T> executeByShard(Collection<String> keys, BiFunction<RedisTemplate<String, Object>, List<String>, T> operation) {
+        Map<RedisTemplate<String, Object>, List<String>> shardKeyMap = groupByShard(keys);
+        if (shardKeyMap.size() <= 1) {
+            List<T> results = new ArrayList<>(1);
+            shardKeyMap.forEach((shard, shardKeys) -> results.add(operation.apply(shard, shardKeys)));
+            return results;
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardKeyMap.size());
+        Map.Entry<RedisTemplate<String, Object>, List<String>> first = null;
+        for (Map.Entry<RedisTemplate<String, Object>, List<String>> entry : shardKeyMap.entrySet()) {
+            if (first == null) {
+                first = entry;
+                continue;
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(entry.getKey(), entry.getValue()), shardExecutor));
+        }
+        List<T> results = new ArrayList<>(shardKeyMap.size());
+        results.add(operation.apply(first.getKey(), first.getValue()));
+        try {
+            futures.forEach(future -> results.add(future.join()));
+        } catch (CompletionException exception) {
+            throw exception.getCause() instanceof RuntimeException ? (RuntimeException) exception.getCause() : exception;
+        }
+        return results;
+    }
+
+    /**
+     * 计算分片使用的key：包含非空的hash tag时只取{}中的部分，与Redis集群计算槽的规则一致
+     */
+    private String getShardKey(String key) {
+        int start = key.indexOf('{');
+        if (start >= 0) {
+            int end = key.indexOf('}', start + 1);
+            if (end > start + 1) {
+                return key.substring(start + 1, end);
+            }
+        }
+        return key;
+    }
+
+    private long hash(String value) {
+        return HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (shardExecutor != null) {
+            shardExecutor.shutdown();
+        }
+    }
+}
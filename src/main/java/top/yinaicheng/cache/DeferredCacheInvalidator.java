@@ -0,0 +1,80 @@
+package top.yinaicheng.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存延迟删除器：在事务提交后删除缓存，并支持延迟再次删除
+ * @author yinaicheng
+ */
+@Component
+public class DeferredCacheInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredCacheInvalidator.class);
+
+    private final ScheduledThreadPoolExecutor delayExecutor;
+
+    public DeferredCacheInvalidator() {
+        this.delayExecutor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("cache-delay-delete-%d").setDaemon(true).build());
+    }
+
+    /**
+     * 当前线程存在事务时在事务提交后执行删除，否则立即执行；delayMillis大于0时在删除后延迟再次删除
+     */
+    public void invalidateAfterCommit(Runnable invalidation, long delayMillis) {
+        runAfterCommit(() -> {
+            runQuietly(invalidation);
+            scheduleDelayed(invalidation, delayMillis);
+        });
+    }
+
+    /**
+     * 当前线程存在事务时在事务提交后开始计时，否则立即开始计时，延迟delayMillis后再次删除，delayMillis不大于0时忽略
+     */
+    public void scheduleAfterCommit(Runnable invalidation, long delayMillis) {
+        if (delayMillis > 0) {
+            runAfterCommit(() -> scheduleDelayed(invalidation, delayMillis));
+        }
+    }
+
+    private void runAfterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+            return;
+        }
+        task.run();
+    }
+
+    private void scheduleDelayed(Runnable invalidation, long delayMillis) {
+        if (delayMillis > 0) {
+            delayExecutor.schedule(() -> runQuietly(invalidation), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runQuietly(Runnable invalidation) {
+        try {
+            invalidation.run();
+        } catch (Exception exception) {
+            logger.error("删除缓存出错，原因是{}", exception.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delayExecutor.shutdown();
+    }
+}
@@ -0,0 +1,227 @@
+package top.yinaicheng.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 分布式加载租约：缓存未命中时，集群内只有获得租约的节点执行加载，其余节点等待加载完成的通知后读取redis
+ * @author yinaicheng
+ */
+@Component
+public class DistributedLoadLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedLoadLease.class);
+
+    /**
+     * 只释放自己持有的租约
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get',KEYS[1]) == ARGV[1] then return redis.call('del',KEYS[1]) else return 0 end", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final CacheProperties cacheProperties;
+
+    private final CacheProperties.LeaseProperties leaseProperties;
+
+    /**
+     * 本节点正在等待加载结果的key，收到通知后唤醒
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> waiterMap = new ConcurrentHashMap<>();
+
+    /**
+     * 获得租约的次数
+     */
+    private final LongAdder leaseWinCount = new LongAdder();
+
+    /**
+     * 等待其他节点加载的次数
+     */
+    private final LongAdder leaseWaitCount = new LongAdder();
+
+    /**
+     * 等待超时后自行加载的次数
+     */
+    private final LongAdder leaseTimeoutCount = new LongAdder();
+
+    @Autowired
+    public DistributedLoadLease(@Qualifier("data_governance_redis") RedisTemplate<String, Object> redisTemplate,
+                                @Qualifier("cacheRedisMessageListenerContainer") RedisMessageListenerContainer listenerContainer,
+                                CacheProperties cacheProperties) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.cacheProperties = cacheProperties;
+        this.leaseProperties = cacheProperties.getLease();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (isEnabled()) {
+            listenerContainer.addMessageListener(this::onLoaded, new ChannelTopic(leaseProperties.getChannel()));
+        }
+    }
+
+    /**
+     * 是否启用分布式加载租约
+     */
+    public boolean isEnabled() {
+        return leaseProperties.isEnabled();
+    }
+
+    /**
+     * 获得租约则执行加载，否则等待其他节点加载完成；租约失效或等待超时后自行加载
+     * @param cacheKey 缓存key
+     * @param cacheName 缓存名称，用于获取等待时间
+     * @param valueReader 读取redis中已缓存的值
+     * @param valueLoader 加载并写入缓存
+     */
+    public Object load(String cacheKey, String cacheName, Supplier<Object> valueReader,
+                       SingleFlightLoader.ValueLoader valueLoader) throws Throwable {
+        String leaseKey = cacheProperties.getKeyPrefix().concat("lease:").concat(cacheKey);
+        String token = UUID.randomUUID().toString();
+        if (tryAcquire(leaseKey, token)) {
+            return loadWithLease(cacheKey, leaseKey, token, valueReader, valueLoader);
+        }
+        leaseWaitCount.increment();
+        long deadline = System.currentTimeMillis() + getWaitTimeout(cacheName);
+        CompletableFuture<Void> signal = null;
+        try {
+            while (true) {
+                /*先登记等待，再检查redis，避免错过加载完成的通知*/
+                signal = waiterMap.computeIfAbsent(cacheKey, key -> new CompletableFuture<>());
+                Object value = valueReader.get();
+                if (Optional.ofNullable(value).isPresent()) {
+                    return value;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    leaseTimeoutCount.increment();
+                    logger.warn("等待key:{}的加载租约超时，改为自行加载", cacheKey);
+                    return valueLoader.load();
+                }
+                /*租约已失效（持有者异常或加载失败），尝试接管加载*/
+                if (!Boolean.TRUE.equals(redisTemplate.hasKey(leaseKey)) && tryAcquire(leaseKey, token)) {
+                    return loadWithLease(cacheKey, leaseKey, token, valueReader, valueLoader);
+                }
+                try {
+                    signal.get(Math.min(remaining, leaseProperties.getLeaseTime()), TimeUnit.MILLISECONDS);
+                } catch (TimeoutException | ExecutionException exception) {
+                    /*继续检查缓存和租约状态*/
+                }
+            }
+        } finally {
+            if (signal != null) {
+                waiterMap.remove(cacheKey, signal);
+            }
+        }
+    }
+
+    private Object loadWithLease(String cacheKey, String leaseKey, String token, Supplier<Object> valueReader,
+                                 SingleFlightLoader.ValueLoader valueLoader) throws Throwable {
+        leaseWinCount.increment();
+        try {
+            /*获得租约前其他节点可能刚完成加载*/
+            Object value = valueReader.get();
+            if (Optional.ofNullable(value).isPresent()) {
+                return value;
+            }
+            return valueLoader.load();
+        } finally {
+            release(leaseKey, token);
+            /*无论加载是否成功都通知等待的节点，失败时由等待节点接管*/
+            notifyLoaded(cacheKey);
+        }
+    }
+
+    /**
+     * 记录未写入缓存的加载结果（空值或满足排除缓存条件的值），在租约时长内等待的节点读取该结果后直接返回，不逐个重新加载
+     */
+    public void publishOutcome(String cacheKey, Object outcome) {
+        try {
+            redisTemplate.opsForValue().set(getOutcomeKey(cacheKey), outcome, leaseProperties.getLeaseTime(), TimeUnit.MILLISECONDS);
+        } catch (Exception exception) {
+            logger.error("记录key:{}的加载结果出错，原因是{}", cacheKey, exception.getMessage());
+        }
+    }
+
+    /**
+     * 读取持有租约的节点记录的加载结果，不存在时返回null
+     */
+    public Object readOutcome(String cacheKey) {
+        return redisTemplate.opsForValue().get(getOutcomeKey(cacheKey));
+    }
+
+    private String getOutcomeKey(String cacheKey) {
+        return cacheProperties.getKeyPrefix().concat("lease:outcome:").concat(cacheKey);
+    }
+
+    private void notifyLoaded(String cacheKey) {
+        try {
+            redisTemplate.convertAndSend(leaseProperties.getChannel(), cacheKey);
+        } catch (Exception exception) {
+            logger.error("发送key:{}的加载完成通知出错，原因是{}", cacheKey, exception.getMessage());
+        }
+    }
+
+    private boolean tryAcquire(String leaseKey, String token) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(leaseKey, token, leaseProperties.getLeaseTime(), TimeUnit.MILLISECONDS));
+    }
+
+    private void release(String leaseKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(leaseKey), token);
+        } catch (Exception exception) {
+            logger.error("释放加载租约{}出错，原因是{}", leaseKey, exception.getMessage());
+        }
+    }
+
+    private void onLoaded(Message message, byte[] pattern) {
+        Object cacheKey = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        CompletableFuture<Void> signal = waiterMap.remove(String.valueOf(cacheKey));
+        if (signal != null) {
+            signal.complete(null);
+        }
+    }
+
+    private long getWaitTimeout(String cacheName) {
+        return leaseProperties.getWaitTimeouts().getOrDefault(cacheName, leaseProperties.getDefaultWaitTimeout());
+    }
+
+    public long getLeaseWinCount() {
+        return leaseWinCount.sum();
+    }
+
+    public long getLeaseWaitCount() {
+        return leaseWaitCount.sum();
+    }
+
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount.sum();
+    }
+}
@@ -0,0 +1,129 @@
+package top.yinaicheng.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.constant.InvalidationBusTypeEnum;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地一级缓存管理器，按cacheName划分区域，位于Redis二级缓存之前
+ * @author yinaicheng
+ */
+@Component
+public class LocalCacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalCacheManager.class);
+
+    private final CacheProperties.LocalCacheProperties localCacheProperties;
+
+    /**
+     * cacheName与本地缓存区域的映射
+     */
+    private final Map<String, Cache<String, Object>> regionMap = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LocalCacheManager(CacheProperties cacheProperties) {
+        this.localCacheProperties = cacheProperties.getLocal();
+        if (localCacheProperties.isEnabled() && cacheProperties.getBus().getType() == InvalidationBusTypeEnum.NONE) {
+            logger.warn("已开启本地缓存但未开启失效通知（yinaicheng.cache.bus.type=NONE），多节点部署时其他节点删除缓存后本节点在本地缓存过期前仍返回旧值");
+        }
+    }
+
+    /**
+     * 是否启用本地缓存
+     */
+    public boolean isEnabled() {
+        return localCacheProperties.isEnabled();
+    }
+
+    /**
+     * 从本地缓存获取值，未命中返回null
+     */
+    public Object get(String cacheName, String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Cache<String, Object> region = regionMap.get(cacheName);
+        return region == null ? null : region.getIfPresent(key);
+    }
+
+    /**
+     * 写入本地缓存，过期时间不超过本地缓存配置的过期时间
+     */
+    public void put(String cacheName, String key, Object value, long ttlMillis) {
+        if (!isEnabled() || value == null || ttlMillis <= 0) {
+            return;
+        }
+        long expireMillis = Math.min(ttlMillis, TimeUnit.MINUTES.toMillis(localCacheProperties.getExpireAfterWrite()));
+        getRegion(cacheName).policy().expireVariably()
+                .ifPresent(varExpiration -> varExpiration.put(key, value, expireMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 从所有区域中删除指定key，删除操作的cacheName可能与查询操作不一致，因此不区分区域
+     */
+    public void evict(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        regionMap.values().forEach(region -> region.invalidateAll(keys));
+    }
+
+    /**
+     * 从所有区域中删除以指定前缀开头的key
+     */
+    public void evictByPrefix(Collection<String> prefixes) {
+        if (prefixes == null || prefixes.isEmpty()) {
+            return;
+        }
+        regionMap.values().forEach(region -> region.asMap().keySet()
+                .removeIf(key -> prefixes.stream().anyMatch(key::startsWith)));
+    }
+
+    /**
+     * 清空所有区域
+     */
+    public void clear() {
+        regionMap.values().forEach(Cache::invalidateAll);
+    }
+
+    /**
+     * 清空指定cacheName的区域
+     */
+    public void clear(Collection<String> cacheNames) {
+        cacheNames.stream().map(regionMap::get).filter(Objects::nonNull).forEach(Cache::invalidateAll);
+    }
+
+    private Cache<String, Object> getRegion(String cacheName) {
+        return regionMap.computeIfAbsent(cacheName, name -> Caffeine.newBuilder()
+                .maximumSize(localCacheProperties.getMaxSize())
+                .expireAfter(new Expiry<String, Object>() {
+                    @Override
+                    public long expireAfterCreate(String key, Object value, long currentTime) {
+                        return TimeUnit.MINUTES.toNanos(localCacheProperties.getExpireAfterWrite());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+                        return TimeUnit.MINUTES.toNanos(localCacheProperties.getExpireAfterWrite());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build());
+    }
+}
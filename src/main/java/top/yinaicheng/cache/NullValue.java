@@ -0,0 +1,29 @@
+package top.yinaicheng.cache;
+
+import java.io.Serializable;
+
+/**
+ * 空值占位对象，方法返回null时写入缓存，命中后直接返回null
+ * @author yinaicheng
+ */
+public final class NullValue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final NullValue INSTANCE = new NullValue();
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof NullValue;
+    }
+
+    @Override
+    public int hashCode() {
+        return NullValue.class.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "NullValue";
+    }
+}
@@ -0,0 +1,168 @@
+package top.yinaicheng.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 缓存key前缀索引：以有序集合保存前缀下的缓存key，分值为key的过期时间，写入时和定期清理已过期的成员，
+ * 索引key随最晚过期的成员一起过期
+ * @author yinaicheng
+ */
+@Component
+public class PrefixKeyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefixKeyIndex.class);
+
+    /**
+     * 登记成员并清理已过期的成员，索引key的过期时间设为最晚过期的成员的过期时间，不再写入的前缀索引随之过期
+     */
+    private static final byte[] ADD_SCRIPT = ("for i = 2, #ARGV, 2 do redis.call('zadd', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+            + "redis.call('zremrangebyscore', KEYS[1], '-inf', ARGV[1]) "
+            + "local last = redis.call('zrange', KEYS[1], -1, -1, 'withscores') "
+            + "if last[2] then redis.call('pexpireat', KEYS[1], last[2]) end "
+            + "return 1").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final CacheProperties cacheProperties;
+
+    /**
+     * 本节点写入过的前缀，定期清理这些前缀索引中已过期的成员
+     */
+    private final Set<String> prefixes = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledThreadPoolExecutor sweepExecutor = new ScheduledThreadPoolExecutor(1,
+            new ThreadFactoryBuilder().setNameFormat("cache-index-sweep-%d").setDaemon(true).build());
+
+    @Autowired
+    public PrefixKeyIndex(@Qualifier("data_governance_redis") RedisTemplate<String, Object> redisTemplate,
+                          CacheProperties cacheProperties) {
+        this.redisTemplate = redisTemplate;
+        this.cacheProperties = cacheProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = cacheProperties.getIndexSweepInterval();
+        if (interval > 0) {
+            sweepExecutor.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 登记缓存key及其过期时间，并清理该前缀下已过期的成员，一次往返完成
+     */
+    public void add(String prefix, String cacheKey, long expireAt) {
+        add(redisTemplate, prefix, Collections.singletonMap(cacheKey, expireAt));
+    }
+
+    /**
+     * 在pipeline或事务中批量登记缓存key及其过期时间，并清理该前缀下已过期的成员
+     */
+    public void add(RedisOperations<String, Object> operations, String prefix, Map<String, Long> expireAtMap) {
+        prefixes.add(prefix);
+        byte[][] keysAndArgs = createKeysAndArgs(getIndexKey(prefix), expireAtMap);
+        /*直接发送EVAL而不是EVALSHA，pipeline中无法在脚本未缓存时重试*/
+        operations.execute((RedisCallback<Object>) connection ->
+                connection.eval(ADD_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs));
+    }
+
+    /**
+     * 脚本参数：索引key、当前时间，以及成员的过期时间和成员
+     */
+    @SuppressWarnings("unchecked")
+    private byte[][] createKeysAndArgs(String indexKey, Map<String, Long> expireAtMap) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        byte[][] keysAndArgs = new byte[2 + (expireAtMap.size() << 1)][];
+        keysAndArgs[0] = keySerializer.serialize(indexKey);
+        keysAndArgs[1] = toBytes(System.currentTimeMillis());
+        int i = 2;
+        for (Map.Entry<String, Long> entry : expireAtMap.entrySet()) {
+            keysAndArgs[i++] = toBytes(entry.getValue());
+            keysAndArgs[i++] = valueSerializer.serialize(entry.getKey());
+        }
+        return keysAndArgs;
+    }
+
+    private byte[] toBytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 获取前缀下未过期的缓存key，同时包含旧版本以Set保存的索引中的key
+     */
+    public Set<String> getLiveKeys(Collection<String> prefixList) {
+        long now = System.currentTimeMillis();
+        Set<String> cacheKeys = new LinkedHashSet<>();
+        for (String prefix : prefixList) {
+            Optional.ofNullable(redisTemplate.opsForZSet().rangeByScore(getIndexKey(prefix), now, Double.POSITIVE_INFINITY))
+                    .ifPresent(members -> members.forEach(member -> cacheKeys.add(String.valueOf(member))));
+            if (DataType.SET == redisTemplate.type(prefix)) {
+                Optional.ofNullable(redisTemplate.opsForSet().members(prefix))
+                        .ifPresent(members -> members.forEach(member -> cacheKeys.add(String.valueOf(member))));
+            }
+        }
+        return cacheKeys;
+    }
+
+    /**
+     * 删除前缀索引，同时删除旧版本以Set保存的索引
+     */
+    public void remove(Collection<String> prefixList) {
+        redisTemplate.delete(prefixList.stream().map(this::getIndexKey).collect(Collectors.toList()));
+        for (String prefix : prefixList) {
+            if (DataType.SET == redisTemplate.type(prefix)) {
+                redisTemplate.delete(prefix);
+            }
+        }
+    }
+
+    /**
+     * 清理本节点写入过的前缀索引中已过期的成员
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (String prefix : prefixes) {
+            try {
+                redisTemplate.opsForZSet().removeRangeByScore(getIndexKey(prefix), Double.NEGATIVE_INFINITY, now);
+            } catch (Exception exception) {
+                logger.error("清理前缀{}的索引出错，原因是{}", prefix, exception.getMessage());
+            }
+        }
+    }
+
+    private String getIndexKey(String prefix) {
+        return cacheProperties.getKeyPrefix().concat("index:").concat(prefix);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweepExecutor.shutdown();
+    }
+}
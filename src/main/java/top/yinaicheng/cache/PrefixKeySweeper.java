@@ -0,0 +1,213 @@
+package top.yinaicheng.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按前缀删除缓存的后台清理器：通过SCAN游标遍历匹配前缀的key，按批次UNLINK，避免一次性删除阻塞redis和调用线程；
+ * 连接Redis集群或使用客户端分片时按节点扫描
+ * @author yinaicheng
+ */
+@Component
+public class PrefixKeySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefixKeySweeper.class);
+
+    /**
+     * 需要在MATCH模式中转义的字符
+     */
+    private static final String GLOB_SPECIAL_CHARS = "*?[]\\";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final CacheShardRouter cacheShardRouter;
+
+    private final CacheNameRedisRouter cacheNameRedisRouter;
+
+    private final CacheProperties.ScanProperties scanProperties;
+
+    private final ThreadPoolExecutor sweepExecutor;
+
+    /**
+     * 已提交但尚未开始执行的删除任务，相同cacheName和前缀的删除请求合并到同一个任务
+     */
+    private final Map<String, CompletableFuture<Long>> pendingSweepMap = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PrefixKeySweeper(@Qualifier("data_governance_redis") RedisTemplate<String, Object> redisTemplate,
+                            CacheShardRouter cacheShardRouter, CacheNameRedisRouter cacheNameRedisRouter,
+                            CacheProperties cacheProperties) {
+        this.redisTemplate = redisTemplate;
+        this.cacheShardRouter = cacheShardRouter;
+        this.cacheNameRedisRouter = cacheNameRedisRouter;
+        this.scanProperties = cacheProperties.getScan();
+        this.sweepExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(scanProperties.getQueueCapacity()),
+                new ThreadFactoryBuilder().setNameFormat("cache-sweep-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 提交删除任务，cacheName单独配置了Redis时在单独的Redis中删除，返回删除的key数量；
+     * 相同的删除任务尚未开始执行时直接返回该任务的结果，队列已满时返回失败的结果，不在调用线程中执行删除
+     */
+    public CompletableFuture<Long> sweep(String cacheName, String prefix) {
+        String sweepKey = cacheName + ":" + prefix;
+        CompletableFuture<Long> newFuture = new CompletableFuture<>();
+        CompletableFuture<Long> pendingFuture = pendingSweepMap.putIfAbsent(sweepKey, newFuture);
+        if (pendingFuture != null) {
+            logger.debug("前缀{}的删除任务尚未开始执行，合并本次删除", prefix);
+            return pendingFuture;
+        }
+        newFuture.whenComplete((count, throwable) -> {
+            if (throwable != null) {
+                logger.error("删除redis中前缀{}的key出错，原因是{}", prefix, throwable.getMessage());
+            }
+        });
+        try {
+            sweepExecutor.execute(() -> {
+                /*开始执行后到达的删除请求重新提交任务，扫描开始后写入的key可能未被遍历到*/
+                pendingSweepMap.remove(sweepKey, newFuture);
+                try {
+                    newFuture.complete(doSweep(cacheName, prefix));
+                } catch (RuntimeException exception) {
+                    newFuture.completeExceptionally(exception);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            pendingSweepMap.remove(sweepKey, newFuture);
+            newFuture.completeExceptionally(new RejectedExecutionException("前缀删除任务队列已满", exception));
+        }
+        return newFuture;
+    }
+
+    private long doSweep(String cacheName, String prefix) {
+        RedisTemplate<String, Object> cacheNameRedisTemplate = cacheName == null ? null : cacheNameRedisRouter.getRedisTemplate(cacheName);
+        List<RedisTemplate<String, Object>> redisTemplates;
+        if (cacheNameRedisTemplate != null) {
+            redisTemplates = Collections.singletonList(cacheNameRedisTemplate);
+        } else {
+            /*客户端分片时逐个扫描全部分片节点*/
+            redisTemplates = cacheShardRouter.isEnabled() ? cacheShardRouter.getShards() : Collections.singletonList(redisTemplate);
+        }
+        long deletedCount = 0L;
+        for (RedisTemplate<String, Object> template : redisTemplates) {
+            deletedCount += doSweep(template, prefix);
+        }
+        logger.info("redis中前缀{}的{}个key被清空", prefix, deletedCount);
+        return deletedCount;
+    }
+
+    private long doSweep(RedisTemplate<String, Object> template, String prefix) {
+        String pattern = getMatchPattern(prefix);
+        Long deletedCount = template.execute((RedisCallback<Long>) connection -> {
+            ScanOptions scanOptions = ScanOptions.scanOptions().match(pattern)
+                    .count(scanProperties.getBatchSize()).build();
+            if (!(connection instanceof RedisClusterConnection)) {
+                return scanAndUnlink(connection, connection.scan(scanOptions), prefix);
+            }
+            /*集群的SCAN只遍历单个节点：前缀带hash tag时只扫描其所在槽的主节点，否则逐个扫描全部主节点*/
+            RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+            Collection<RedisClusterNode> nodes = CacheKeyBuilder.hasHashTag(prefix)
+                    ? Collections.singletonList(clusterConnection.clusterGetNodeForKey(prefix.getBytes(StandardCharsets.UTF_8)))
+                    : clusterConnection.clusterGetMasterSlaveMap().keySet();
+            long count = 0L;
+            for (RedisClusterNode node : nodes) {
+                count += scanAndUnlink(connection, clusterConnection.scan(node, scanOptions), prefix);
+            }
+            return count;
+        });
+        return deletedCount == null ? 0L : deletedCount;
+    }
+
+    private long scanAndUnlink(RedisConnection connection, Cursor<byte[]> scanCursor, String prefix) {
+        long count = 0L;
+        List<byte[]> batch = new ArrayList<>(scanProperties.getBatchSize());
+        try (Cursor<byte[]> cursor = scanCursor) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= scanProperties.getBatchSize()) {
+                    count += unlink(connection, batch);
+                }
+            }
+        } catch (IOException exception) {
+            logger.warn("关闭前缀{}的扫描游标出错，原因是{}", prefix, exception.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            count += unlink(connection, batch);
+        }
+        return count;
+    }
+
+    private long unlink(RedisConnection connection, List<byte[]> batch) {
+        Long count = connection.unlink(batch.toArray(new byte[0][]));
+        batch.clear();
+        pause();
+        return count == null ? 0L : count;
+    }
+
+    private void pause() {
+        if (scanProperties.getPauseMillis() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(scanProperties.getPauseMillis());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 生成匹配前缀的MATCH模式：key经过序列化后可能带有引号等字符，取序列化结果去掉结尾引号的部分作为前缀
+     */
+    @SuppressWarnings("unchecked")
+    private String getMatchPattern(String prefix) {
+        String serializedPrefix = new String(((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(prefix),
+                StandardCharsets.UTF_8);
+        if (serializedPrefix.endsWith("\"")) {
+            serializedPrefix = serializedPrefix.substring(0, serializedPrefix.length() - 1);
+        }
+        StringBuilder pattern = new StringBuilder(serializedPrefix.length() + 8);
+        for (int i = 0; i < serializedPrefix.length(); i++) {
+            char c = serializedPrefix.charAt(i);
+            if (GLOB_SPECIAL_CHARS.indexOf(c) >= 0) {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('*').toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweepExecutor.shutdown();
+    }
+}
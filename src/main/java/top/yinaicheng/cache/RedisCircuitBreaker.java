@@ -0,0 +1,249 @@
+package top.yinaicheng.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.constant.CircuitBreakerStateEnum;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * redis熔断器：按秒分桶统计窗口内的调用次数、错误次数和慢调用次数，错误率或慢调用比例超过阈值时打开熔断，
+ * 打开期间缓存切面不访问redis，直接从本地缓存或调用方法获取值，避免请求线程和异步线程堆积在不可用的redis上；
+ * 等待一段时间后进入半开状态，只允许少量试探请求访问redis，全部成功后关闭，任一失败或慢调用后重新打开；
+ * 统计和状态切换均不加锁，一次缓存操作只占用一个试探请求
+ * @author yinaicheng
+ */
+@Component
+public class RedisCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    private final CacheProperties.CircuitBreakerProperties circuitBreakerProperties;
+
+    private final long slowCallNanos;
+
+    private final LongSupplier clock;
+
+    /**
+     * 按秒数对桶数量取余定位的统计桶，秒数变化时以新桶替换
+     */
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private final AtomicReference<State> state = new AtomicReference<>(new State(CircuitBreakerStateEnum.CLOSED, 0L, 0));
+
+    @Autowired
+    public RedisCircuitBreaker(CacheProperties cacheProperties) {
+        this(cacheProperties, System::currentTimeMillis);
+    }
+
+    RedisCircuitBreaker(CacheProperties cacheProperties, LongSupplier clock) {
+        this.circuitBreakerProperties = cacheProperties.getCircuitBreaker();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(circuitBreakerProperties.getSlowCallDuration());
+        this.clock = clock;
+        int window = Math.max(circuitBreakerProperties.getWindow(), 1);
+        this.buckets = new AtomicReferenceArray<>(window);
+        for (int i = 0; i < window; i++) {
+            buckets.set(i, new Bucket(-1L));
+        }
+    }
+
+    /**
+     * 是否允许访问redis，熔断打开或半开状态试探请求已用完时返回false；半开状态下返回true时占用一个试探请求，
+     * 结果须通过record记录
+     */
+    public boolean tryAcquire() {
+        if (!circuitBreakerProperties.isEnabled()) {
+            return true;
+        }
+        while (true) {
+            State current = state.get();
+            if (current.state == CircuitBreakerStateEnum.CLOSED) {
+                return true;
+            }
+            long now = clock.getAsLong();
+            /*打开超过等待时间，或半开状态的试探请求长时间没有返回结果时，重新发放试探请求*/
+            if (now - current.changeTime >= circuitBreakerProperties.getWaitDurationInOpenState()) {
+                State halfOpen = new State(CircuitBreakerStateEnum.HALF_OPEN, now, circuitBreakerProperties.getPermittedCallsInHalfOpenState());
+                if (!state.compareAndSet(current, halfOpen)) {
+                    continue;
+                }
+                current = halfOpen;
+            }
+            if (current.state == CircuitBreakerStateEnum.OPEN) {
+                return false;
+            }
+            return current.permits.getAndUpdate(permits -> permits > 0 ? permits - 1 : 0) > 0;
+        }
+    }
+
+    /**
+     * 熔断是否处于打开状态，打开时不执行依附于本次缓存操作的后续访问（如未命中后的写入）
+     */
+    public boolean isOpen() {
+        return circuitBreakerProperties.isEnabled() && state.get().state == CircuitBreakerStateEnum.OPEN;
+    }
+
+    /**
+     * 执行通过tryAcquire获准的redis操作并记录结果和耗时，半开状态下作为试探请求的结果，异常原样抛出
+     */
+    public <T> T record(Supplier<T> supplier) {
+        return record(supplier, true);
+    }
+
+    /**
+     * 执行未占用试探请求的redis操作（删除、未命中后的写入等）并记录结果和耗时，只计入关闭状态的统计，
+     * 不影响半开状态的试探结果，异常原样抛出
+     */
+    public <T> T recordWithoutPermit(Supplier<T> supplier) {
+        return record(supplier, false);
+    }
+
+    public CircuitBreakerStateEnum getState() {
+        return state.get().state;
+    }
+
+    private <T> T record(Supplier<T> supplier, boolean permitted) {
+        if (!circuitBreakerProperties.isEnabled()) {
+            return supplier.get();
+        }
+        State current = state.get();
+        long startTime = System.nanoTime();
+        T result;
+        try {
+            result = supplier.get();
+        } catch (RuntimeException exception) {
+            onResult(current, permitted, true, false);
+            throw exception;
+        }
+        onResult(current, permitted, false, System.nanoTime() - startTime >= slowCallNanos);
+        return result;
+    }
+
+    /**
+     * @param current 发起调用时的状态，状态已经切换时丢弃本次结果
+     */
+    private void onResult(State current, boolean permitted, boolean failure, boolean slow) {
+        if (state.get() != current || current.state == CircuitBreakerStateEnum.OPEN) {
+            return;
+        }
+        long now = clock.getAsLong();
+        if (current.state == CircuitBreakerStateEnum.HALF_OPEN) {
+            if (!permitted) {
+                return;
+            }
+            if (failure || slow) {
+                open(current, now, "半开状态的试探请求" + (failure ? "出错" : "超过慢调用时间"));
+            } else if (current.successes.incrementAndGet() >= circuitBreakerProperties.getPermittedCallsInHalfOpenState()
+                    && state.compareAndSet(current, new State(CircuitBreakerStateEnum.CLOSED, now, 0))) {
+                resetBuckets();
+                logger.info("redis试探请求全部成功，关闭熔断");
+            }
+            return;
+        }
+        long second = TimeUnit.MILLISECONDS.toSeconds(now);
+        Bucket bucket = getBucket(second);
+        bucket.calls.increment();
+        if (failure) {
+            bucket.failures.increment();
+        }
+        if (slow) {
+            bucket.slowCalls.increment();
+        }
+        long calls = 0;
+        long failures = 0;
+        long slowCalls = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket element = buckets.get(i);
+            if (second - element.second < buckets.length()) {
+                calls += element.calls.sum();
+                failures += element.failures.sum();
+                slowCalls += element.slowCalls.sum();
+            }
+        }
+        if (calls < circuitBreakerProperties.getMinimumCalls()) {
+            return;
+        }
+        if (failures * 100L >= (long) circuitBreakerProperties.getFailureRateThreshold() * calls) {
+            open(current, now, "错误率" + failures * 100 / calls + "%超过阈值");
+        } else if (slowCalls * 100L >= (long) circuitBreakerProperties.getSlowCallRateThreshold() * calls) {
+            open(current, now, "慢调用比例" + slowCalls * 100 / calls + "%超过阈值");
+        }
+    }
+
+    /**
+     * 获取该秒的统计桶，桶中是更早的秒数时以新桶替换
+     */
+    private Bucket getBucket(long second) {
+        int index = (int) (second % buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            /*时钟回拨时计入当前桶*/
+            if (bucket.second >= second) {
+                return bucket;
+            }
+            Bucket newBucket = new Bucket(second);
+            if (buckets.compareAndSet(index, bucket, newBucket)) {
+                return newBucket;
+            }
+        }
+    }
+
+    private void open(State current, long now, String reason) {
+        if (state.compareAndSet(current, new State(CircuitBreakerStateEnum.OPEN, now, 0))) {
+            logger.warn("redis{}，打开熔断{}毫秒", reason, circuitBreakerProperties.getWaitDurationInOpenState());
+        }
+    }
+
+    private void resetBuckets() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, new Bucket(-1L));
+        }
+    }
+
+    /**
+     * 熔断状态、切换时间以及半开状态剩余的试探请求数量和已成功的试探请求数量，每次切换状态创建新对象
+     */
+    private static final class State {
+
+        private final CircuitBreakerStateEnum state;
+
+        private final long changeTime;
+
+        private final AtomicInteger permits;
+
+        private final AtomicInteger successes = new AtomicInteger();
+
+        State(CircuitBreakerStateEnum state, long changeTime, int permits) {
+            this.state = state;
+            this.changeTime = changeTime;
+            this.permits = new AtomicInteger(permits);
+        }
+    }
+
+    /**
+     * 一秒内的调用次数、错误次数和慢调用次数
+     */
+    private static final class Bucket {
+
+        private final long second;
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder slowCalls = new LongAdder();
+
+        Bucket(long second) {
+            this.second = second;
+        }
+    }
+}
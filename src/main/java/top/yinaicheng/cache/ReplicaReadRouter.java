@@ -0,0 +1,125 @@
+package top.yinaicheng.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.config.RedisConnectionFactoryRegistry;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 缓存读取路由：按配置的读取策略从从节点读取缓存，写入和删除仍在主节点执行，配置了readTimeout时读取使用更短的超时时间；
+ * 本节点最近写入或删除的key和前缀在读写保护时间内仍从主节点读取，避免从节点复制延迟读到旧值
+ * @author yinaicheng
+ */
+@Component
+public class ReplicaReadRouter {
+
+    /**
+     * 读写保护时间内最多记录的key数量，超过后淘汰最早的记录
+     */
+    private static final long MAX_RECENT_WRITES = 100000L;
+
+    /**
+     * 按读取策略选择节点、超时时间为readTimeout的RedisTemplate，读取策略为MASTER或不可用且未配置readTimeout时为null
+     */
+    private final RedisTemplate<String, Object> readRedisTemplate;
+
+    private final long readAfterWriteWindow;
+
+    private final LongSupplier clock;
+
+    /**
+     * 最近写入或删除的key，读写保护时间为0时为null
+     */
+    private final Cache<String, Boolean> recentWrites;
+
+    /**
+     * 最近删除的前缀与删除时间的映射
+     */
+    private final Map<String, Long> recentPrefixWrites = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReplicaReadRouter(RedisConnectionFactoryRegistry redisConnectionFactoryRegistry, CacheProperties cacheProperties) {
+        this(redisConnectionFactoryRegistry, cacheProperties, System::currentTimeMillis);
+    }
+
+    ReplicaReadRouter(RedisConnectionFactoryRegistry redisConnectionFactoryRegistry, CacheProperties cacheProperties, LongSupplier clock) {
+        CacheProperties.RedisCacheProperties redis = cacheProperties.getRedis();
+        RedisConnectionFactory readConnectionFactory = redisConnectionFactoryRegistry.getReadConnectionFactory(redis);
+        if (readConnectionFactory != null) {
+            readRedisTemplate = new RedisTemplate<>();
+            readRedisTemplate.setConnectionFactory(readConnectionFactory);
+            readRedisTemplate.afterPropertiesSet();
+        } else {
+            readRedisTemplate = null;
+        }
+        this.readAfterWriteWindow = redis.getReadAfterWriteWindow();
+        this.clock = clock;
+        this.recentWrites = readRedisTemplate != null && readAfterWriteWindow > 0
+                ? Caffeine.newBuilder().expireAfterWrite(readAfterWriteWindow, TimeUnit.MILLISECONDS)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+                .maximumSize(MAX_RECENT_WRITES).build() : null;
+    }
+
+    /**
+     * 是否使用单独的读取连接
+     */
+    public boolean isEnabled() {
+        return readRedisTemplate != null;
+    }
+
+    public RedisTemplate<String, Object> getReadRedisTemplate() {
+        return readRedisTemplate;
+    }
+
+    /**
+     * 该key是否可以从从节点读取
+     */
+    public boolean isReplicaReadable(String key) {
+        return readRedisTemplate != null && !isRecentlyWritten(key);
+    }
+
+    /**
+     * 记录本节点写入或删除的key
+     */
+    public void recordWrite(Collection<String> keys) {
+        if (recentWrites != null) {
+            keys.forEach(key -> recentWrites.put(key, Boolean.TRUE));
+        }
+    }
+
+    /**
+     * 记录本节点删除的前缀
+     */
+    public void recordPrefixWrite(Collection<String> prefixes) {
+        if (recentWrites != null) {
+            long now = clock.getAsLong();
+            prefixes.forEach(prefix -> recentPrefixWrites.put(prefix, now));
+        }
+    }
+
+    private boolean isRecentlyWritten(String key) {
+        if (recentWrites == null) {
+            return false;
+        }
+        if (recentWrites.getIfPresent(key) != null) {
+            return true;
+        }
+        if (recentPrefixWrites.isEmpty()) {
+            return false;
+        }
+        long expireTime = clock.getAsLong() - readAfterWriteWindow;
+        /*顺带清理超过保护时间的前缀*/
+        recentPrefixWrites.values().removeIf(writeTime -> writeTime < expireTime);
+        return recentPrefixWrites.keySet().stream().anyMatch(key::startsWith);
+    }
+}
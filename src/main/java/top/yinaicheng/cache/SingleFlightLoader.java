@@ -0,0 +1,96 @@
+package top.yinaicheng.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 单飞加载器：同一JVM内相同key的并发加载合并为一次，其余请求等待该次加载的结果
+ * @author yinaicheng
+ */
+@Component
+public class SingleFlightLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightLoader.class);
+
+    /**
+     * 正在进行中的加载，key为缓存key
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightMap = new ConcurrentHashMap<>();
+
+    /**
+     * 加载缓存值，首个请求执行加载，其余请求最多等待timeoutMillis毫秒，超时后自行加载
+     */
+    public Object load(String key, long timeoutMillis, ValueLoader valueLoader) throws Throwable {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightMap.putIfAbsent(key, future);
+        if (inFlight == null) {
+            try {
+                Object value = valueLoader.load();
+                future.complete(value);
+                return value;
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+                throw throwable;
+            } finally {
+                inFlightMap.remove(key, future);
+            }
+        }
+        try {
+            return inFlight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            logger.warn("等待key:{}的加载结果超过{}毫秒，改为自行加载", key, timeoutMillis);
+            return valueLoader.load();
+        } catch (ExecutionException exception) {
+            throw exception.getCause();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw exception;
+        }
+    }
+
+    /**
+     * 异步加载缓存值，首个请求执行加载，其余请求共享该次加载的结果，不阻塞调用线程
+     */
+    public CompletableFuture<Object> loadAsync(String key, Supplier<CompletableFuture<Object>> futureLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightMap.putIfAbsent(key, future);
+        if (inFlight == null) {
+            inFlight = future;
+            CompletableFuture<Object> loadFuture;
+            try {
+                loadFuture = futureLoader.get();
+            } catch (Throwable throwable) {
+                loadFuture = new CompletableFuture<>();
+                loadFuture.completeExceptionally(throwable);
+            }
+            loadFuture.whenComplete((value, throwable) -> {
+                inFlightMap.remove(key, future);
+                if (throwable != null) {
+                    future.completeExceptionally(throwable);
+                } else {
+                    future.complete(value);
+                }
+            });
+        }
+        /*每个请求返回各自的future，避免某个调用方取消后影响其他请求*/
+        return inFlight.thenApply(Function.identity());
+    }
+
+    /**
+     * 缓存值加载逻辑
+     */
+    @FunctionalInterface
+    public interface ValueLoader {
+        Object load() throws Throwable;
+    }
+}
@@ -0,0 +1,37 @@
+package top.yinaicheng.cache.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 异步返回值适配器，将缓存方法的异步返回值（CompletableFuture、Mono等）与CompletableFuture相互转换
+ * @author yinaicheng
+ */
+public interface AsyncReturnAdapter {
+
+    /**
+     * 适配的异步类型，用于解析缓存值的泛型类型
+     */
+    Class<?> getAsyncType();
+
+    /**
+     * 是否适配方法声明的返回值类型
+     */
+    boolean supports(Class<?> returnType);
+
+    /**
+     * 将方法返回的异步值转换为CompletableFuture，返回null时视为值为null
+     */
+    CompletableFuture<Object> toFuture(Object returnValue);
+
+    /**
+     * 将缓存查询的结果转换为方法声明的返回值类型
+     * @param futureSupplier 开始查询缓存并返回结果，惰性的异步类型在订阅时才调用
+     */
+    Object fromFuture(Supplier<CompletableFuture<Object>> futureSupplier);
+
+    /**
+     * 方法返回的异步值完成（成功或失败）后执行操作
+     */
+    Object afterCompletion(Object returnValue, Runnable action);
+}
@@ -0,0 +1,48 @@
+package top.yinaicheng.cache.async;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * CompletableFuture和CompletionStage返回值适配器
+ * @author yinaicheng
+ */
+@Component
+public class CompletionStageReturnAdapter implements AsyncReturnAdapter {
+
+    @Override
+    public Class<?> getAsyncType() {
+        return CompletionStage.class;
+    }
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return returnType == CompletableFuture.class || returnType == CompletionStage.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Object> toFuture(Object returnValue) {
+        if (returnValue == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return ((CompletionStage<Object>) returnValue).toCompletableFuture();
+    }
+
+    @Override
+    public Object fromFuture(Supplier<CompletableFuture<Object>> futureSupplier) {
+        return futureSupplier.get();
+    }
+
+    @Override
+    public Object afterCompletion(Object returnValue, Runnable action) {
+        if (returnValue == null) {
+            action.run();
+            return null;
+        }
+        return ((CompletionStage<?>) returnValue).whenComplete((value, throwable) -> action.run());
+    }
+}
@@ -0,0 +1,49 @@
+package top.yinaicheng.cache.async;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Reactor Mono返回值适配器，类路径中存在reactor-core时生效；缓存查询在订阅时才开始，空的Mono视为值为null
+ * @author yinaicheng
+ */
+@Component
+@ConditionalOnClass(name = "reactor.core.publisher.Mono")
+public class MonoReturnAdapter implements AsyncReturnAdapter {
+
+    @Override
+    public Class<?> getAsyncType() {
+        return Mono.class;
+    }
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return returnType == Mono.class;
+    }
+
+    @Override
+    public CompletableFuture<Object> toFuture(Object returnValue) {
+        if (returnValue == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return ((Mono<?>) returnValue).cast(Object.class).toFuture();
+    }
+
+    @Override
+    public Object fromFuture(Supplier<CompletableFuture<Object>> futureSupplier) {
+        return Mono.defer(() -> Mono.fromFuture(futureSupplier.get()));
+    }
+
+    @Override
+    public Object afterCompletion(Object returnValue, Runnable action) {
+        if (returnValue == null) {
+            action.run();
+            return null;
+        }
+        return ((Mono<?>) returnValue).doFinally(signalType -> action.run());
+    }
+}
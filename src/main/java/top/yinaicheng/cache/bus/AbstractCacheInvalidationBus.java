@@ -0,0 +1,228 @@
+package top.yinaicheng.cache.bus;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import top.yinaicheng.cache.CacheGenerationManager;
+import top.yinaicheng.cache.LocalCacheManager;
+import top.yinaicheng.config.CacheProperties;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存失效通知总线的基础实现：合并一个批次内的key和前缀后统一发送，按发送节点的消息序号发现丢失的消息，
+ * 发现丢失时清空丢失消息涉及的cacheName的本地缓存区域，丢失的消息超出消息携带的记录范围时清空全部本地缓存
+ * @author yinaicheng
+ */
+public abstract class AbstractCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractCacheInvalidationBus.class);
+
+    /**
+     * 每条消息携带的最近消息cacheName记录条数
+     */
+    private static final int RECENT_MESSAGE_COUNT = 64;
+
+    protected final LocalCacheManager localCacheManager;
+
+    protected final CacheGenerationManager cacheGenerationManager;
+
+    protected final CacheProperties.BusProperties busProperties;
+
+    /**
+     * 本节点标识，每次启动生成，重启后其他节点重新记录序号
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 本节点最近一条消息的序号，只在发送线程中修改
+     */
+    private long sequence;
+
+    /**
+     * 最近一次发送消息的时间
+     */
+    private long lastSendTime;
+
+    /**
+     * 本节点最近若干条消息的序号与cacheName的映射，只在发送线程中修改
+     */
+    private final LinkedHashMap<Long, List<String>> recentCacheNameMap = new LinkedHashMap<Long, List<String>>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<String>> eldest) {
+            return size() > RECENT_MESSAGE_COUNT;
+        }
+    };
+
+    /**
+     * 其他节点最近一条消息的序号
+     */
+    private final Map<String, Long> receivedSequenceMap = new ConcurrentHashMap<>();
+
+    private final Object pendingLock = new Object();
+
+    /**
+     * 待发送的key和前缀，同一批次内重复的只发送一次
+     */
+    private Set<String> pendingKeys = new LinkedHashSet<>();
+
+    private Set<String> pendingPrefixes = new LinkedHashSet<>();
+
+    private Set<String> pendingCacheNames = new LinkedHashSet<>();
+
+    /**
+     * 单线程发送，保证同一节点的消息按序号顺序发送
+     */
+    private final ScheduledThreadPoolExecutor sendExecutor = new ScheduledThreadPoolExecutor(1,
+            new ThreadFactoryBuilder().setNameFormat("cache-invalidation-bus-%d").setDaemon(true).build());
+
+    protected AbstractCacheInvalidationBus(LocalCacheManager localCacheManager, CacheGenerationManager cacheGenerationManager,
+                                           CacheProperties cacheProperties) {
+        this.localCacheManager = localCacheManager;
+        this.cacheGenerationManager = cacheGenerationManager;
+        this.busProperties = cacheProperties.getBus();
+    }
+
+    @PostConstruct
+    public void start() throws Exception {
+        connect();
+        sendExecutor.scheduleWithFixedDelay(this::flush, busProperties.getBatchInterval(),
+                busProperties.getBatchInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sendExecutor.shutdown();
+        disconnect();
+    }
+
+    @Override
+    public void publish(String cacheName, Collection<String> keys, Collection<String> prefixes) {
+        int pendingSize;
+        synchronized (pendingLock) {
+            pendingKeys.addAll(keys);
+            pendingPrefixes.addAll(prefixes);
+            pendingCacheNames.add(cacheName);
+            pendingSize = pendingKeys.size() + pendingPrefixes.size();
+        }
+        /*待发送数量达到批次上限时立即发送*/
+        if (pendingSize >= busProperties.getMaxBatchSize()) {
+            sendExecutor.execute(this::flush);
+        }
+    }
+
+    /**
+     * 发送待发送的key和前缀，空闲超过心跳间隔时发送心跳，便于其他节点及时发现丢失的消息
+     */
+    private void flush() {
+        Set<String> keys;
+        Set<String> prefixes;
+        Set<String> cacheNames;
+        synchronized (pendingLock) {
+            keys = pendingKeys;
+            prefixes = pendingPrefixes;
+            cacheNames = pendingCacheNames;
+            if (!keys.isEmpty() || !prefixes.isEmpty()) {
+                pendingKeys = new LinkedHashSet<>();
+                pendingPrefixes = new LinkedHashSet<>();
+                pendingCacheNames = new LinkedHashSet<>();
+            }
+        }
+        long now = System.currentTimeMillis();
+        boolean heartbeat = keys.isEmpty() && prefixes.isEmpty();
+        if (heartbeat && now - lastSendTime < busProperties.getHeartbeatInterval()) {
+            return;
+        }
+        if (!heartbeat) {
+            sequence++;
+            recentCacheNameMap.put(sequence, new ArrayList<>(cacheNames));
+        }
+        lastSendTime = now;
+        try {
+            send(new InvalidationMessage(nodeId, sequence, heartbeat, new ArrayList<>(keys), new ArrayList<>(prefixes),
+                    new HashMap<>(recentCacheNameMap)));
+        } catch (Exception exception) {
+            /*发送失败的消息序号已被占用并已记录cacheName，其他节点收到下一条消息时会发现丢失并清空这些cacheName的本地缓存*/
+            logger.error("发送本地缓存失效消息出错，原因是{}", exception.getMessage());
+        }
+    }
+
+    /**
+     * 处理其他节点发送的消息
+     */
+    protected void onMessage(InvalidationMessage message) {
+        if (message == null || nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        /*同一节点的消息可能被并发投递，比较和更新序号在一次compute中完成；序号小于已记录的消息是重复或乱序到达的，只执行删除*/
+        long[] missingRange = new long[2];
+        receivedSequenceMap.compute(message.getNodeId(), (nodeId, receivedSequence) -> {
+            if (receivedSequence == null) {
+                return message.getSequence();
+            }
+            long lastMissingSequence = message.isHeartbeat() ? message.getSequence() : message.getSequence() - 1;
+            if (lastMissingSequence > receivedSequence) {
+                missingRange[0] = receivedSequence + 1;
+                missingRange[1] = lastMissingSequence;
+            }
+            return Math.max(receivedSequence, message.getSequence());
+        });
+        if (missingRange[1] > 0) {
+            clearMissing(message, missingRange[0], missingRange[1]);
+        }
+        localCacheManager.evict(message.getKeys());
+        localCacheManager.evictByPrefix(message.getPrefixes());
+        /*前缀可能已更新版本号，重新读取*/
+        cacheGenerationManager.expire(message.getPrefixes());
+    }
+
+    /**
+     * 清空丢失的消息涉及的cacheName的本地缓存区域，丢失的消息不在本条消息携带的记录中时清空全部本地缓存；
+     * 丢失的消息中的前缀无法得知，前缀版本号全部重新读取
+     */
+    private void clearMissing(InvalidationMessage message, long fromSequence, long toSequence) {
+        Map<Long, List<String>> recentCacheNames = message.getRecentCacheNames();
+        Set<String> cacheNames = new LinkedHashSet<>();
+        for (long missingSequence = fromSequence; missingSequence <= toSequence; missingSequence++) {
+            List<String> missingCacheNames = recentCacheNames == null ? null : recentCacheNames.get(missingSequence);
+            if (missingCacheNames == null) {
+                logger.warn("节点{}的本地缓存失效消息丢失，序号{}至{}，清空本地缓存", message.getNodeId(), fromSequence, toSequence);
+                localCacheManager.clear();
+                cacheGenerationManager.expireAll();
+                return;
+            }
+            cacheNames.addAll(missingCacheNames);
+        }
+        logger.warn("节点{}的本地缓存失效消息丢失，序号{}至{}，清空{}的本地缓存", message.getNodeId(), fromSequence, toSequence, cacheNames);
+        localCacheManager.clear(cacheNames);
+        cacheGenerationManager.expireAll();
+    }
+
+    /**
+     * 连接传输通道并开始接收消息
+     */
+    protected abstract void connect() throws Exception;
+
+    /**
+     * 发送消息
+     */
+    protected abstract void send(InvalidationMessage message) throws Exception;
+
+    /**
+     * 断开传输通道
+     */
+    protected abstract void disconnect();
+}
@@ -0,0 +1,18 @@
+package top.yinaicheng.cache.bus;
+
+import java.util.Collection;
+
+/**
+ * 跨节点本地缓存失效通知总线，删除缓存时通知其他节点删除各自的本地缓存
+ * @author yinaicheng
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * 通知其他节点删除本地缓存
+     * @param cacheName 删除操作的cacheName，其他节点发现消息丢失时只清空这些cacheName的本地缓存区域
+     * @param keys 需要删除的缓存key
+     * @param prefixes 需要删除的缓存key前缀
+     */
+    void publish(String cacheName, Collection<String> keys, Collection<String> prefixes);
+}
@@ -0,0 +1,107 @@
+package top.yinaicheng.cache.bus;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 本地缓存失效消息，同一节点发送的消息带有连续的序号，用于发现丢失的消息
+ * @author yinaicheng
+ */
+public class InvalidationMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 发送节点标识，每次启动生成
+     */
+    private String nodeId;
+
+    /**
+     * 发送节点的消息序号，心跳消息携带最近一条消息的序号
+     */
+    private long sequence;
+
+    /**
+     * 是否为心跳消息，心跳消息不包含需要删除的key
+     */
+    private boolean heartbeat;
+
+    /**
+     * 需要删除的缓存key
+     */
+    private List<String> keys = new ArrayList<>();
+
+    /**
+     * 需要删除的缓存key前缀
+     */
+    private List<String> prefixes = new ArrayList<>();
+
+    /**
+     * 发送节点最近若干条消息（包括本条）的序号与删除操作的cacheName的映射，接收方发现消息丢失时只清空丢失消息涉及的cacheName
+     */
+    private Map<Long, List<String>> recentCacheNames = new HashMap<>();
+
+    public InvalidationMessage() {
+    }
+
+    public InvalidationMessage(String nodeId, long sequence, boolean heartbeat, List<String> keys, List<String> prefixes,
+                               Map<Long, List<String>> recentCacheNames) {
+        this.nodeId = nodeId;
+        this.sequence = sequence;
+        this.heartbeat = heartbeat;
+        this.keys = keys;
+        this.prefixes = prefixes;
+        this.recentCacheNames = recentCacheNames;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public boolean isHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(boolean heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public List<String> getPrefixes() {
+        return prefixes;
+    }
+
+    public void setPrefixes(List<String> prefixes) {
+        this.prefixes = prefixes;
+    }
+
+    public Map<Long, List<String>> getRecentCacheNames() {
+        return recentCacheNames;
+    }
+
+    public void setRecentCacheNames(Map<Long, List<String>> recentCacheNames) {
+        this.recentCacheNames = recentCacheNames;
+    }
+}
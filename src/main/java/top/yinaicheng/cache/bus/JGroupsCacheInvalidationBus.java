@@ -0,0 +1,57 @@
+package top.yinaicheng.cache.bus;
+
+import org.jgroups.JChannel;
+import org.jgroups.Message;
+import org.jgroups.ReceiverAdapter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.cache.CacheGenerationManager;
+import top.yinaicheng.cache.LocalCacheManager;
+import top.yinaicheng.config.CacheProperties;
+
+/**
+ * 基于JGroups集群通道的本地缓存失效通知总线，适用于节点间可直接通信、不希望依赖redis的部署
+ * @author yinaicheng
+ */
+@Component
+@ConditionalOnProperty(prefix = "yinaicheng.cache.bus", name = "type", havingValue = "jgroups")
+public class JGroupsCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    private JChannel channel;
+
+    @Autowired
+    public JGroupsCacheInvalidationBus(LocalCacheManager localCacheManager, CacheGenerationManager cacheGenerationManager,
+                                       CacheProperties cacheProperties) {
+        super(localCacheManager, cacheGenerationManager, cacheProperties);
+    }
+
+    @Override
+    protected void connect() throws Exception {
+        channel = new JChannel(busProperties.getJgroupsConfig());
+        /*不接收本节点发送的消息*/
+        channel.setDiscardOwnMessages(true);
+        channel.setReceiver(new ReceiverAdapter() {
+            @Override
+            public void receive(Message message) {
+                Object invalidationMessage = message.getObject();
+                if (invalidationMessage instanceof InvalidationMessage) {
+                    onMessage((InvalidationMessage) invalidationMessage);
+                }
+            }
+        });
+        channel.connect(busProperties.getJgroupsCluster());
+    }
+
+    @Override
+    protected void send(InvalidationMessage message) throws Exception {
+        channel.send(null, message);
+    }
+
+    @Override
+    protected void disconnect() {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
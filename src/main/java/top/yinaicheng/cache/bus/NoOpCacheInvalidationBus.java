@@ -0,0 +1,19 @@
+package top.yinaicheng.cache.bus;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * 不通知其他节点的本地缓存失效通知总线，单节点部署或未启用本地缓存时使用
+ * @author yinaicheng
+ */
+@Component
+@ConditionalOnProperty(prefix = "yinaicheng.cache.bus", name = "type", havingValue = "none", matchIfMissing = true)
+public class NoOpCacheInvalidationBus implements CacheInvalidationBus {
+
+    @Override
+    public void publish(String cacheName, Collection<String> keys, Collection<String> prefixes) {
+    }
+}
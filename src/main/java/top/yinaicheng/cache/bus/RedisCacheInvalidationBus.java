@@ -0,0 +1,61 @@
+package top.yinaicheng.cache.bus;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.cache.CacheGenerationManager;
+import top.yinaicheng.cache.LocalCacheManager;
+import top.yinaicheng.config.CacheProperties;
+
+/**
+ * 基于redis发布订阅的本地缓存失效通知总线
+ * @author yinaicheng
+ */
+@Component
+@ConditionalOnProperty(prefix = "yinaicheng.cache.bus", name = "type", havingValue = "redis")
+public class RedisCacheInvalidationBus extends AbstractCacheInvalidationBus {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final MessageListener messageListener = this::onRedisMessage;
+
+    @Autowired
+    public RedisCacheInvalidationBus(@Qualifier("data_governance_redis") RedisTemplate<String, Object> redisTemplate,
+                                     @Qualifier("cacheRedisMessageListenerContainer") RedisMessageListenerContainer listenerContainer,
+                                     LocalCacheManager localCacheManager, CacheGenerationManager cacheGenerationManager,
+                                     CacheProperties cacheProperties) {
+        super(localCacheManager, cacheGenerationManager, cacheProperties);
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @Override
+    protected void connect() {
+        listenerContainer.addMessageListener(messageListener, new ChannelTopic(busProperties.getChannel()));
+    }
+
+    @Override
+    protected void send(InvalidationMessage message) {
+        redisTemplate.convertAndSend(busProperties.getChannel(), message);
+    }
+
+    @Override
+    protected void disconnect() {
+        listenerContainer.removeMessageListener(messageListener);
+    }
+
+    private void onRedisMessage(Message message, byte[] pattern) {
+        Object invalidationMessage = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (invalidationMessage instanceof InvalidationMessage) {
+            onMessage((InvalidationMessage) invalidationMessage);
+        }
+    }
+}
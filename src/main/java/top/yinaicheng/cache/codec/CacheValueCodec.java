@@ -0,0 +1,44 @@
+package top.yinaicheng.cache.codec;
+
+import java.lang.reflect.Type;
+
+/**
+ * 缓存值编解码器，可按cacheName选择，自定义编解码器声明为Spring Bean即可注册
+ * @author yinaicheng
+ */
+public interface CacheValueCodec {
+
+    /**
+     * 编解码器标识，取值0到15，写入redis的值以该标识作为首字节，不同编解码器的标识不能重复
+     */
+    int getId();
+
+    /**
+     * 编解码器名称，用于配置
+     */
+    String getName();
+
+    /**
+     * 将缓存值编码为字节数组
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 将字节数组解码为缓存值
+     */
+    Object decode(byte[] bytes);
+
+    /**
+     * 解码时是否需要缓存方法的返回值类型，为true时读取的值由缓存切面按返回值类型解码
+     */
+    default boolean isTypeRequired() {
+        return false;
+    }
+
+    /**
+     * 按缓存方法的返回值类型解码
+     */
+    default Object decode(byte[] bytes, Type type) {
+        return decode(bytes);
+    }
+}
@@ -0,0 +1,167 @@
+package top.yinaicheng.cache.codec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.cache.compress.CacheCompressionMetrics;
+import top.yinaicheng.cache.compress.CacheValueCompression;
+import top.yinaicheng.cache.compress.CacheValueCompressor;
+import top.yinaicheng.config.CacheProperties;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存值编解码器注册表，按cacheName选择编解码器和压缩算法
+ * @author yinaicheng
+ */
+@Component
+public class CacheValueCodecRegistry {
+
+    /**
+     * 不压缩时的压缩算法名称
+     */
+    private static final String NO_COMPRESSION = "none";
+
+    /**
+     * 按标识索引的编解码器
+     */
+    private final CacheValueCodec[] codecs = new CacheValueCodec[16];
+
+    private final Map<String, CacheValueCodec> codecNameMap = new HashMap<>();
+
+    private final CacheValueCodec defaultCodec;
+
+    private final CacheProperties.CodecProperties codecProperties;
+
+    /**
+     * cacheName与编解码器名称的映射，yinaicheng.cache.names中的配置优先
+     */
+    private final Map<String, String> cacheCodecMap = new HashMap<>();
+
+    private final CacheValueSerializer valueSerializer;
+
+    /**
+     * 按标识索引的压缩算法
+     */
+    private final CacheValueCompressor[] compressors = new CacheValueCompressor[8];
+
+    private final Map<String, CacheValueCompressor> compressorNameMap = new HashMap<>();
+
+    private final CacheProperties.CompressionProperties compressionProperties;
+
+    /**
+     * cacheName与压缩配置的映射，不压缩的cacheName映射为空
+     */
+    private final Map<String, Optional<CacheValueCompression>> compressionMap = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CacheValueCodecRegistry(List<CacheValueCodec> codecList, List<CacheValueCompressor> compressorList,
+                                   CacheCompressionMetrics cacheCompressionMetrics, CacheProperties cacheProperties) {
+        for (CacheValueCodec codec : codecList) {
+            if (codec.getId() < 0 || codec.getId() >= codecs.length) {
+                throw new IllegalStateException("缓存值编解码器" + codec.getName() + "的标识必须在0到15之间");
+            }
+            if (codecs[codec.getId()] != null) {
+                throw new IllegalStateException("缓存值编解码器" + codec.getName() + "与"
+                        + codecs[codec.getId()].getName() + "的标识重复");
+            }
+            codecs[codec.getId()] = codec;
+            codecNameMap.put(codec.getName(), codec);
+        }
+        for (CacheValueCompressor compressor : compressorList) {
+            if (compressor.getId() < 0 || compressor.getId() >= compressors.length) {
+                throw new IllegalStateException("缓存值压缩算法" + compressor.getName() + "的标识必须在0到7之间");
+            }
+            if (compressors[compressor.getId()] != null) {
+                throw new IllegalStateException("缓存值压缩算法" + compressor.getName() + "与"
+                        + compressors[compressor.getId()].getName() + "的标识重复");
+            }
+            compressors[compressor.getId()] = compressor;
+            compressorNameMap.put(compressor.getName(), compressor);
+        }
+        this.codecProperties = cacheProperties.getCodec();
+        this.compressionProperties = cacheProperties.getCompression();
+        /*未指定编解码器的值（锁、消息、索引等）和原有缓存值始终使用FastJson*/
+        this.defaultCodec = codecNameMap.get(FastJsonCacheValueCodec.NAME);
+        this.valueSerializer = new CacheValueSerializer(codecs, defaultCodec, compressors, cacheCompressionMetrics);
+        cacheCodecMap.putAll(codecProperties.getCacheCodecs());
+        cacheProperties.getNames().forEach((cacheName, nameProperties) -> {
+            if (nameProperties.getCodec() != null) {
+                cacheCodecMap.put(cacheName, nameProperties.getCodec());
+            }
+        });
+        cacheCodecMap.values().forEach(this::getCodecByName);
+        getCodecByName(codecProperties.getDefaultCodec());
+        compressionProperties.getCacheAlgorithms().values().forEach(this::getCompressorByName);
+        getCompressorByName(compressionProperties.getDefaultAlgorithm());
+    }
+
+    /**
+     * 获取写入redis时使用的值序列化器
+     */
+    public CacheValueSerializer getValueSerializer() {
+        return valueSerializer;
+    }
+
+    /**
+     * 获取cacheName使用的编解码器
+     */
+    public CacheValueCodec getCodec(String cacheName) {
+        return getCodecByName(cacheCodecMap.getOrDefault(cacheName, codecProperties.getDefaultCodec()));
+    }
+
+    /**
+     * 获取cacheName使用的压缩配置，不压缩时返回null
+     */
+    public CacheValueCompression getCompression(String cacheName) {
+        return compressionMap.computeIfAbsent(cacheName, key -> {
+            String algorithm = compressionProperties.getCacheAlgorithms().getOrDefault(key, compressionProperties.getDefaultAlgorithm());
+            return Optional.ofNullable(getCompressorByName(algorithm)).map(compressor -> new CacheValueCompression(key, compressor,
+                    compressionProperties.getCacheThresholds().getOrDefault(key, compressionProperties.getThreshold())));
+        }).orElse(null);
+    }
+
+    /**
+     * 按cacheName使用的编解码器和压缩算法包装待写入redis的缓存值，使用FastJson且不压缩时原样返回，与原有格式保持一致；
+     * 编解码器需要返回值类型但缓存值类型无法解析时同样使用FastJson
+     */
+    public Object wrap(String cacheName, Object value, Type valueType) {
+        CacheValueCodec codec = getCodec(cacheName);
+        if (codec.isTypeRequired() && valueType == null) {
+            codec = defaultCodec;
+        }
+        CacheValueCompression compression = getCompression(cacheName);
+        if (codec == defaultCodec && compression == null) {
+            return value;
+        }
+        return new EncodedCacheValue(codec, value, compression);
+    }
+
+    /**
+     * 按缓存值类型解码需要返回值类型的缓存值，其他值原样返回
+     */
+    public Object decode(Object value, Type valueType) {
+        if (!(value instanceof UndecodedCacheValue)) {
+            return value;
+        }
+        UndecodedCacheValue undecodedValue = (UndecodedCacheValue) value;
+        return undecodedValue.getCodec().decode(undecodedValue.getBytes(), valueType == null ? Object.class : valueType);
+    }
+
+    private CacheValueCodec getCodecByName(String name) {
+        return Optional.ofNullable(codecNameMap.get(name))
+                .orElseThrow(() -> new IllegalStateException("未注册名称为" + name + "的缓存值编解码器"));
+    }
+
+    private CacheValueCompressor getCompressorByName(String name) {
+        if (NO_COMPRESSION.equals(name)) {
+            return null;
+        }
+        return Optional.ofNullable(compressorNameMap.get(name))
+                .orElseThrow(() -> new IllegalStateException("未注册名称为" + name + "的缓存值压缩算法"));
+    }
+}
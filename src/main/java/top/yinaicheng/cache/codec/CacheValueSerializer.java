@@ -0,0 +1,111 @@
+package top.yinaicheng.cache.codec;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import top.yinaicheng.cache.compress.CacheCompressionMetrics;
+import top.yinaicheng.cache.compress.CacheValueCompression;
+import top.yinaicheng.cache.compress.CacheValueCompressor;
+
+import java.util.Arrays;
+
+/**
+ * 缓存值序列化器：指定了编解码器的值写入一个标识字节后按该编解码器编码，其余值按FastJson编码；
+ * 标识字节取值0x10到0x1F，JSON文本的首字节不会落在该范围内，因此可以读取不带标识字节的原有缓存值；
+ * 压缩后的值标识字节最高位为1，第4到6位为压缩算法标识，低4位为编解码器标识，同样不会与JSON文本的首字节冲突
+ * @author yinaicheng
+ */
+public class CacheValueSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 标识字节的高4位
+     */
+    static final int HEADER_MARK = 0x10;
+
+    /**
+     * 压缩后的值的标识字节最高位
+     */
+    static final int COMPRESSED_MARK = 0x80;
+
+    private final CacheValueCodec[] codecs;
+
+    private final CacheValueCodec defaultCodec;
+
+    private final CacheValueCompressor[] compressors;
+
+    private final CacheCompressionMetrics cacheCompressionMetrics;
+
+    /**
+     * @param codecs 按标识索引的编解码器
+     * @param defaultCodec 未指定编解码器以及不带标识字节的值使用的编解码器
+     * @param compressors 按标识索引的压缩算法
+     * @param cacheCompressionMetrics 压缩统计
+     */
+    public CacheValueSerializer(CacheValueCodec[] codecs, CacheValueCodec defaultCodec,
+                                CacheValueCompressor[] compressors, CacheCompressionMetrics cacheCompressionMetrics) {
+        this.codecs = codecs;
+        this.defaultCodec = defaultCodec;
+        this.compressors = compressors;
+        this.cacheCompressionMetrics = cacheCompressionMetrics;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!(value instanceof EncodedCacheValue)) {
+            return defaultCodec.encode(value);
+        }
+        EncodedCacheValue encodedCacheValue = (EncodedCacheValue) value;
+        CacheValueCodec codec = encodedCacheValue.getCodec();
+        byte[] body = codec.encode(encodedCacheValue.getValue());
+        CacheValueCompression compression = encodedCacheValue.getCompression();
+        if (compression != null && body.length >= compression.getThreshold()) {
+            long startTime = System.nanoTime();
+            byte[] compressedBody = compression.getCompressor().compress(body);
+            cacheCompressionMetrics.recordCompression(compression.getCacheName(), body.length, compressedBody.length,
+                    System.nanoTime() - startTime);
+            if (compressedBody.length < body.length) {
+                return withHeader(COMPRESSED_MARK | compression.getCompressor().getId() << 4 | codec.getId(), compressedBody);
+            }
+        }
+        /*未压缩的FastJson值不写入标识字节，与原有格式保持一致*/
+        if (codec == defaultCodec) {
+            return body;
+        }
+        return withHeader(HEADER_MARK | codec.getId(), body);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int header = bytes[0] & 0xFF;
+        byte[] body;
+        if ((header & COMPRESSED_MARK) != 0) {
+            CacheValueCompressor compressor = compressors[(header >> 4) & 0x07];
+            if (compressor == null) {
+                throw new SerializationException("未注册标识为" + ((header >> 4) & 0x07) + "的缓存值压缩算法");
+            }
+            long startTime = System.nanoTime();
+            body = compressor.decompress(bytes, 1, bytes.length - 1);
+            cacheCompressionMetrics.recordDecompression(compressor.getName(), bytes.length - 1, body.length,
+                    System.nanoTime() - startTime);
+        } else if ((header & 0xF0) == HEADER_MARK) {
+            body = Arrays.copyOfRange(bytes, 1, bytes.length);
+        } else {
+            return defaultCodec.decode(bytes);
+        }
+        CacheValueCodec codec = codecs[header & 0x0F];
+        if (codec == null) {
+            throw new SerializationException("未注册标识为" + (header & 0x0F) + "的缓存值编解码器");
+        }
+        /*需要返回值类型的编解码器由缓存切面解码*/
+        return codec.isTypeRequired() ? new UndecodedCacheValue(codec, body) : codec.decode(body);
+    }
+
+    private byte[] withHeader(int header, byte[] body) {
+        byte[] bytes = new byte[body.length + 1];
+        bytes[0] = (byte) header;
+        System.arraycopy(body, 0, bytes, 1, body.length);
+        return bytes;
+    }
+}
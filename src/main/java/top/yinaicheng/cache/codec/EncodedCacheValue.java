@@ -0,0 +1,38 @@
+package top.yinaicheng.cache.codec;
+
+import top.yinaicheng.cache.compress.CacheValueCompression;
+
+/**
+ * 指定编解码器的待写入缓存值，由CacheValueSerializer按指定的编解码器编码，指定了压缩算法时超过阈值的值再压缩
+ * @author yinaicheng
+ */
+public final class EncodedCacheValue {
+
+    private final CacheValueCodec codec;
+
+    private final Object value;
+
+    private final CacheValueCompression compression;
+
+    public EncodedCacheValue(CacheValueCodec codec, Object value) {
+        this(codec, value, null);
+    }
+
+    public EncodedCacheValue(CacheValueCodec codec, Object value, CacheValueCompression compression) {
+        this.codec = codec;
+        this.value = value;
+        this.compression = compression;
+    }
+
+    public CacheValueCodec getCodec() {
+        return codec;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public CacheValueCompression getCompression() {
+        return compression;
+    }
+}
@@ -0,0 +1,36 @@
+package top.yinaicheng.cache.codec;
+
+import com.alibaba.fastjson.support.spring.GenericFastJsonRedisSerializer;
+import org.springframework.stereotype.Component;
+
+/**
+ * FastJson编解码器，与原有的缓存值格式一致，使用该编解码器时写入redis的值不带标识字节
+ * @author yinaicheng
+ */
+@Component
+public class FastJsonCacheValueCodec implements CacheValueCodec {
+
+    public static final String NAME = "fastjson";
+
+    private final GenericFastJsonRedisSerializer fastJsonRedisSerializer = new GenericFastJsonRedisSerializer();
+
+    @Override
+    public int getId() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return fastJsonRedisSerializer.serialize(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return fastJsonRedisSerializer.deserialize(bytes);
+    }
+}
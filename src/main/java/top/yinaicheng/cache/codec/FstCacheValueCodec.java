@@ -0,0 +1,34 @@
+package top.yinaicheng.cache.codec;
+
+import org.nustaq.serialization.FSTConfiguration;
+import org.springframework.stereotype.Component;
+
+/**
+ * FST二进制编解码器，编码结果比JSON更小、编解码更快，缓存值需实现Serializable
+ * @author yinaicheng
+ */
+@Component
+public class FstCacheValueCodec implements CacheValueCodec {
+
+    private final FSTConfiguration fstConfiguration = FSTConfiguration.createDefaultConfiguration();
+
+    @Override
+    public int getId() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return "fst";
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return fstConfiguration.asByteArray(value);
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return fstConfiguration.asObject(bytes);
+    }
+}
@@ -0,0 +1,91 @@
+package top.yinaicheng.cache.codec;
+
+import com.alibaba.fastjson.JSON;
+import org.springframework.stereotype.Component;
+import top.yinaicheng.cache.CacheEntry;
+import top.yinaicheng.cache.NullValue;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按返回值类型编解码的JSON编解码器：不写入类名，读取时按缓存方法的返回值类型（如List&lt;User&gt;）解析，
+ * 编码结果更小，且不会解析为JSONObject
+ * @author yinaicheng
+ */
+@Component
+public class TypedJsonCacheValueCodec implements CacheValueCodec {
+
+    /**
+     * 值的类别：普通值、空值占位对象、缓存值信封
+     */
+    private static final byte PLAIN_VALUE = 0;
+
+    private static final byte NULL_VALUE = 1;
+
+    private static final byte CACHE_ENTRY = 2;
+
+    /**
+     * 缓存值信封的加载耗时和逻辑过期时间所占字节数
+     */
+    private static final int CACHE_ENTRY_HEADER_LENGTH = 1 + Long.BYTES * 2;
+
+    @Override
+    public int getId() {
+        return 2;
+    }
+
+    @Override
+    public String getName() {
+        return "typed-json";
+    }
+
+    @Override
+    public boolean isTypeRequired() {
+        return true;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        if (value instanceof NullValue) {
+            return new byte[]{NULL_VALUE};
+        }
+        if (value instanceof CacheEntry) {
+            CacheEntry cacheEntry = (CacheEntry) value;
+            byte[] body = JSON.toJSONBytes(cacheEntry.getValue());
+            return ByteBuffer.allocate(CACHE_ENTRY_HEADER_LENGTH + body.length).put(CACHE_ENTRY)
+                    .putLong(cacheEntry.getLoadCost()).putLong(cacheEntry.getExpireAt()).put(body).array();
+        }
+        byte[] body = JSON.toJSONBytes(value);
+        byte[] bytes = new byte[body.length + 1];
+        bytes[0] = PLAIN_VALUE;
+        System.arraycopy(body, 0, bytes, 1, body.length);
+        return bytes;
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return decode(bytes, Object.class);
+    }
+
+    @Override
+    public Object decode(byte[] bytes, Type type) {
+        switch (bytes[0]) {
+            case NULL_VALUE:
+                return NullValue.INSTANCE;
+            case CACHE_ENTRY:
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, CACHE_ENTRY_HEADER_LENGTH - 1);
+                long loadCost = buffer.getLong();
+                long expireAt = buffer.getLong();
+                return new CacheEntry(parse(bytes, CACHE_ENTRY_HEADER_LENGTH, type), loadCost, expireAt);
+            case PLAIN_VALUE:
+            default:
+                return parse(bytes, 1, type);
+        }
+    }
+
+    private Object parse(byte[] bytes, int offset, Type type) {
+        return JSON.parseObject(bytes, offset, bytes.length - offset, StandardCharsets.UTF_8, type);
+    }
+}
@@ -0,0 +1,25 @@
+package top.yinaicheng.cache.codec;
+
+/**
+ * 需要按返回值类型解码的缓存值，由CacheValueSerializer读取后交给缓存切面解码
+ * @author yinaicheng
+ */
+public final class UndecodedCacheValue {
+
+    private final CacheValueCodec codec;
+
+    private final byte[] bytes;
+
+    public UndecodedCacheValue(CacheValueCodec codec, byte[] bytes) {
+        this.codec = codec;
+        this.bytes = bytes;
+    }
+
+    public CacheValueCodec getCodec() {
+        return codec;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,53 @@
+package top.yinaicheng.cache.compress;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存值压缩统计：压缩按cacheName统计，解压按压缩算法统计（读取时无法得知cacheName）
+ * @author yinaicheng
+ */
+@Component
+public class CacheCompressionMetrics {
+
+    private final Map<String, CompressionStatistics> compressionStatisticsMap = new ConcurrentHashMap<>();
+
+    private final Map<String, CompressionStatistics> decompressionStatisticsMap = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次压缩，压缩后没有变小时按原值写入
+     */
+    public void recordCompression(String cacheName, int uncompressedLength, int compressedLength, long nanos) {
+        CompressionStatistics statistics = compressionStatisticsMap.computeIfAbsent(cacheName, key -> new CompressionStatistics());
+        if (compressedLength < uncompressedLength) {
+            statistics.record(uncompressedLength, compressedLength, nanos);
+        } else {
+            statistics.recordIneffective(uncompressedLength, nanos);
+        }
+    }
+
+    /**
+     * 记录一次解压
+     */
+    public void recordDecompression(String algorithm, int compressedLength, int uncompressedLength, long nanos) {
+        decompressionStatisticsMap.computeIfAbsent(algorithm, key -> new CompressionStatistics())
+                .record(uncompressedLength, compressedLength, nanos);
+    }
+
+    /**
+     * 按cacheName获取压缩统计
+     */
+    public Map<String, CompressionStatistics> getCompressionStatistics() {
+        return Collections.unmodifiableMap(compressionStatisticsMap);
+    }
+
+    /**
+     * 按压缩算法获取解压统计
+     */
+    public Map<String, CompressionStatistics> getDecompressionStatistics() {
+        return Collections.unmodifiableMap(decompressionStatisticsMap);
+    }
+}
@@ -0,0 +1,32 @@
+package top.yinaicheng.cache.compress;
+
+/**
+ * cacheName使用的压缩算法和压缩阈值
+ * @author yinaicheng
+ */
+public final class CacheValueCompression {
+
+    private final String cacheName;
+
+    private final CacheValueCompressor compressor;
+
+    private final int threshold;
+
+    public CacheValueCompression(String cacheName, CacheValueCompressor compressor, int threshold) {
+        this.cacheName = cacheName;
+        this.compressor = compressor;
+        this.threshold = threshold;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public CacheValueCompressor getCompressor() {
+        return compressor;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+}
@@ -0,0 +1,28 @@
+package top.yinaicheng.cache.compress;
+
+/**
+ * 缓存值压缩算法，可按cacheName选择，自定义压缩算法声明为Spring Bean即可注册
+ * @author yinaicheng
+ */
+public interface CacheValueCompressor {
+
+    /**
+     * 压缩算法标识，取值0到7，写入redis的值的首字节记录该标识，不同压缩算法的标识不能重复
+     */
+    int getId();
+
+    /**
+     * 压缩算法名称，用于配置
+     */
+    String getName();
+
+    /**
+     * 压缩编码后的缓存值
+     */
+    byte[] compress(byte[] bytes);
+
+    /**
+     * 解压字节数组中指定范围的数据
+     */
+    byte[] decompress(byte[] bytes, int offset, int length);
+}
@@ -0,0 +1,83 @@
+package top.yinaicheng.cache.compress;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压缩或解压的累计统计
+ * @author yinaicheng
+ */
+public class CompressionStatistics {
+
+    /**
+     * 压缩或解压的次数
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * 压缩后没有变小、按原值写入的次数
+     */
+    private final LongAdder ineffectiveCount = new LongAdder();
+
+    /**
+     * 未压缩的字节数
+     */
+    private final LongAdder uncompressedBytes = new LongAdder();
+
+    /**
+     * 压缩后的字节数
+     */
+    private final LongAdder compressedBytes = new LongAdder();
+
+    /**
+     * 累计耗时（纳秒）
+     */
+    private final LongAdder costNanos = new LongAdder();
+
+    void record(int uncompressedLength, int compressedLength, long nanos) {
+        count.increment();
+        uncompressedBytes.add(uncompressedLength);
+        compressedBytes.add(compressedLength);
+        costNanos.add(nanos);
+    }
+
+    void recordIneffective(int uncompressedLength, long nanos) {
+        ineffectiveCount.increment();
+        record(uncompressedLength, uncompressedLength, nanos);
+    }
+
+    /**
+     * 压缩率：压缩后的字节数与未压缩的字节数之比，越小压缩效果越好
+     */
+    public double getCompressionRatio() {
+        long uncompressed = uncompressedBytes.sum();
+        return uncompressed == 0 ? 1.0 : (double) compressedBytes.sum() / uncompressed;
+    }
+
+    /**
+     * 平均耗时（纳秒）
+     */
+    public long getAverageCostNanos() {
+        long total = count.sum();
+        return total == 0 ? 0L : costNanos.sum() / total;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getIneffectiveCount() {
+        return ineffectiveCount.sum();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    public long getCostNanos() {
+        return costNanos.sum();
+    }
+}
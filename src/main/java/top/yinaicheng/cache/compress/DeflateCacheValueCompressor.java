@@ -0,0 +1,67 @@
+package top.yinaicheng.cache.compress;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate压缩算法，使用最快的压缩级别，适合访问频繁的缓存
+ * @author yinaicheng
+ */
+@Component
+public class DeflateCacheValueCompressor implements CacheValueCompressor {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public int getId() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return "deflate";
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length >> 1);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, length);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length << 2);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int inflatedLength = inflater.inflate(buffer);
+                if (inflatedLength == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Deflate压缩的缓存值不完整");
+                }
+                outputStream.write(buffer, 0, inflatedLength);
+            }
+            return outputStream.toByteArray();
+        } catch (DataFormatException exception) {
+            throw new IllegalStateException("Deflate解压缓存值出错", exception);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package top.yinaicheng.cache.compress;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GZIP压缩算法，使用默认的压缩级别，压缩率比deflate更高，适合体积大、访问不频繁的缓存
+ * @author yinaicheng
+ */
+@Component
+public class GzipCacheValueCompressor implements CacheValueCompressor {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public int getId() {
+        return 1;
+    }
+
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length >> 1);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE)) {
+            gzipOutputStream.write(bytes);
+        } catch (IOException exception) {
+            throw new IllegalStateException("GZIP压缩缓存值出错", exception);
+        }
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes, int offset, int length) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length << 2);
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes, offset, length), BUFFER_SIZE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int readLength;
+            while ((readLength = gzipInputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, readLength);
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException("GZIP解压缓存值出错", exception);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,34 @@
+package top.yinaicheng.cache.compress;
+
+import org.iq80.snappy.Snappy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+
+/**
+ * Snappy压缩算法（纯Java实现），压缩和解压速度最快，适合访问频繁的缓存，需要引入org.iq80.snappy:snappy依赖
+ * @author yinaicheng
+ */
+@Component
+@ConditionalOnClass(name = "org.iq80.snappy.Snappy")
+public class SnappyCacheValueCompressor implements CacheValueCompressor {
+
+    @Override
+    public int getId() {
+        return 2;
+    }
+
+    @Override
+    public String getName() {
+        return "snappy";
+    }
+
+    @Override
+    public byte[] compress(byte[] bytes) {
+        return Snappy.compress(bytes);
+    }
+
+    @Override
+    public byte[] decompress(byte[] bytes, int offset, int length) {
+        return Snappy.uncompress(bytes, offset, length);
+    }
+}
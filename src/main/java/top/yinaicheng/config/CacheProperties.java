@@ -1,6 +1,16 @@
 package top.yinaicheng.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.expression.spel.SpelCompilerMode;
+import top.yinaicheng.constant.InvalidationBusTypeEnum;
+import top.yinaicheng.constant.PrefixInvalidationStrategyEnum;
+import top.yinaicheng.constant.RedisModeEnum;
+import top.yinaicheng.constant.RedisReadFromEnum;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 缓存配置属性
@@ -29,11 +39,53 @@ public class CacheProperties {
      */
     private boolean cacheNullValues = false;
 
+    /**
+     * 空值缓存的过期时间（秒），通常比正常缓存短
+     */
+    private long nullValueExpiration = 60L;
+
     /**
      * 缓存最大容量
      */
     private long maxCapacity = 10000;
 
+    /**
+     * 开启缓存同步时，等待其他请求加载结果的最长时间（毫秒），超时后自行加载
+     */
+    private long syncWaitTimeout = 3000L;
+
+    /**
+     * 缓存key、condition、unless表达式的SpEL编译模式：OFF、IMMEDIATE、MIXED
+     */
+    private SpelCompilerMode spelCompilerMode = SpelCompilerMode.MIXED;
+
+    /**
+     * 缓存key最大长度，超过时保留前缀并将其余部分摘要为固定长度，0表示不限制；
+     * 开启后已缓存的超长key不再命中，默认不限制，与原有key保持一致
+     */
+    private int maxKeyLength = 0;
+
+    /**
+     * 是否将缓存key前缀作为Redis集群的hash tag（如{user:}123），使同一前缀的key、前缀索引和版本号落在同一个槽；
+     * 同一前缀的全部数据集中在一个节点上，前缀下数据量或访问量很大时会形成热点槽
+     */
+    private boolean hashTagPrefix = false;
+
+    /**
+     * 按key前缀删除缓存的策略：INDEX、GENERATION、SCAN
+     */
+    private PrefixInvalidationStrategyEnum prefixInvalidationStrategy = PrefixInvalidationStrategyEnum.INDEX;
+
+    /**
+     * GENERATION策略下本地缓存的前缀版本号的刷新间隔（毫秒），其他节点删除缓存后最多在该时长内仍读取旧版本
+     */
+    private long generationRefreshInterval = 1000L;
+
+    /**
+     * INDEX策略下定期清理前缀索引中已过期成员的间隔（毫秒），0表示只在写入时清理
+     */
+    private long indexSweepInterval = 60000L;
+
     /**
      * 本地缓存配置
      */
@@ -44,6 +96,110 @@ public class CacheProperties {
      */
     private RedisCacheProperties redis = new RedisCacheProperties();
 
+    /**
+     * 分布式加载租约配置
+     */
+    private LeaseProperties lease = new LeaseProperties();
+
+    /**
+     * 异步刷新线程池配置
+     */
+    private RefreshProperties refresh = new RefreshProperties();
+
+    /**
+     * 异步方法读写缓存的线程池配置
+     */
+    private AsyncProperties async = new AsyncProperties();
+
+    /**
+     * 异步方法读写缓存的线程池配置
+     */
+    public static class AsyncProperties {
+        /**
+         * 核心线程数
+         */
+        private int corePoolSize = 4;
+
+        /**
+         * 最大线程数
+         */
+        private int maxPoolSize = 16;
+
+        /**
+         * 等待队列容量，队列已满时不读取缓存，直接调用方法
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * redis未命中时调用方法的线程池（java.util.concurrent.Executor）的bean名称，未配置时使用与读写线程池大小相同的独立线程池，
+         * 不占用读写redis的线程；线程池已满时方法返回失败的异步结果
+         */
+        private String loadExecutor;
+
+        // Getters and Setters
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public String getLoadExecutor() {
+            return loadExecutor;
+        }
+
+        public void setLoadExecutor(String loadExecutor) {
+            this.loadExecutor = loadExecutor;
+        }
+    }
+
+    /**
+     * SCAN策略下按前缀删除缓存的配置
+     */
+    private ScanProperties scan = new ScanProperties();
+
+    /**
+     * 跨节点本地缓存失效通知配置
+     */
+    private BusProperties bus = new BusProperties();
+
+    /**
+     * 缓存值编解码配置
+     */
+    private CodecProperties codec = new CodecProperties();
+
+    /**
+     * 缓存值压缩配置
+     */
+    private CompressionProperties compression = new CompressionProperties();
+
+    /**
+     * cacheName与单独配置的映射，如yinaicheng.cache.names.userCache.redis.host，用于将访问量大的缓存隔离到单独的Redis
+     */
+    private Map<String, CacheNameProperties> names = new HashMap<>();
+
+    /**
+     * redis熔断配置
+     */
+    private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
     // Getters and Setters
     public boolean isEnabled() {
         return enabled;
@@ -77,6 +233,14 @@ public class CacheProperties {
         this.cacheNullValues = cacheNullValues;
     }
 
+    public long getNullValueExpiration() {
+        return nullValueExpiration;
+    }
+
+    public void setNullValueExpiration(long nullValueExpiration) {
+        this.nullValueExpiration = nullValueExpiration;
+    }
+
     public long getMaxCapacity() {
         return maxCapacity;
     }
@@ -85,6 +249,62 @@ public class CacheProperties {
         this.maxCapacity = maxCapacity;
     }
 
+    public long getSyncWaitTimeout() {
+        return syncWaitTimeout;
+    }
+
+    public void setSyncWaitTimeout(long syncWaitTimeout) {
+        this.syncWaitTimeout = syncWaitTimeout;
+    }
+
+    public SpelCompilerMode getSpelCompilerMode() {
+        return spelCompilerMode;
+    }
+
+    public void setSpelCompilerMode(SpelCompilerMode spelCompilerMode) {
+        this.spelCompilerMode = spelCompilerMode;
+    }
+
+    public int getMaxKeyLength() {
+        return maxKeyLength;
+    }
+
+    public void setMaxKeyLength(int maxKeyLength) {
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    public boolean isHashTagPrefix() {
+        return hashTagPrefix;
+    }
+
+    public void setHashTagPrefix(boolean hashTagPrefix) {
+        this.hashTagPrefix = hashTagPrefix;
+    }
+
+    public PrefixInvalidationStrategyEnum getPrefixInvalidationStrategy() {
+        return prefixInvalidationStrategy;
+    }
+
+    public void setPrefixInvalidationStrategy(PrefixInvalidationStrategyEnum prefixInvalidationStrategy) {
+        this.prefixInvalidationStrategy = prefixInvalidationStrategy;
+    }
+
+    public long getGenerationRefreshInterval() {
+        return generationRefreshInterval;
+    }
+
+    public void setGenerationRefreshInterval(long generationRefreshInterval) {
+        this.generationRefreshInterval = generationRefreshInterval;
+    }
+
+    public long getIndexSweepInterval() {
+        return indexSweepInterval;
+    }
+
+    public void setIndexSweepInterval(long indexSweepInterval) {
+        this.indexSweepInterval = indexSweepInterval;
+    }
+
     public LocalCacheProperties getLocal() {
         return local;
     }
@@ -101,14 +321,86 @@ public class CacheProperties {
         this.redis = redis;
     }
 
+    public LeaseProperties getLease() {
+        return lease;
+    }
+
+    public void setLease(LeaseProperties lease) {
+        this.lease = lease;
+    }
+
+    public RefreshProperties getRefresh() {
+        return refresh;
+    }
+
+    public void setRefresh(RefreshProperties refresh) {
+        this.refresh = refresh;
+    }
+
+    public AsyncProperties getAsync() {
+        return async;
+    }
+
+    public void setAsync(AsyncProperties async) {
+        this.async = async;
+    }
+
+    public ScanProperties getScan() {
+        return scan;
+    }
+
+    public void setScan(ScanProperties scan) {
+        this.scan = scan;
+    }
+
+    public BusProperties getBus() {
+        return bus;
+    }
+
+    public void setBus(BusProperties bus) {
+        this.bus = bus;
+    }
+
+    public CodecProperties getCodec() {
+        return codec;
+    }
+
+    public void setCodec(CodecProperties codec) {
+        this.codec = codec;
+    }
+
+    public CompressionProperties getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionProperties compression) {
+        this.compression = compression;
+    }
+
+    public Map<String, CacheNameProperties> getNames() {
+        return names;
+    }
+
+    public void setNames(Map<String, CacheNameProperties> names) {
+        this.names = names;
+    }
+
+    public CircuitBreakerProperties getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreakerProperties circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
     /**
      * 本地缓存配置
      */
     public static class LocalCacheProperties {
         /**
-         * 是否启用本地缓存
+         * 是否启用本地缓存，多节点部署时需同时开启失效通知，否则其他节点删除缓存后本节点仍返回旧值
          */
-        private boolean enabled = true;
+        private boolean enabled = false;
 
         /**
          * 本地缓存最大条目数
@@ -149,7 +441,7 @@ public class CacheProperties {
     /**
      * Redis缓存配置
      */
-    public static class RedisCacheProperties {
+    public static class RedisCacheProperties implements RedisConnectionProperties {
         /**
          * 是否启用Redis缓存
          */
@@ -180,6 +472,51 @@ public class CacheProperties {
          */
         private int timeout = 2000;
 
+        /**
+         * 部署模式：STANDALONE（默认）、SENTINEL或CLUSTER
+         */
+        private RedisModeEnum mode = RedisModeEnum.STANDALONE;
+
+        /**
+         * 哨兵模式的哨兵地址或集群模式的节点地址，格式为host:port
+         */
+        private List<String> nodes = new ArrayList<>();
+
+        /**
+         * 哨兵模式的主节点名称
+         */
+        private String master;
+
+        /**
+         * 集群模式的最大重定向次数
+         */
+        private int maxRedirects = 5;
+
+        /**
+         * 缓存读取的节点选择策略，MASTER以外的策略需要使用Lettuce客户端，写入始终在主节点执行
+         */
+        private RedisReadFromEnum readFrom = RedisReadFromEnum.MASTER;
+
+        /**
+         * 单机模式下从节点的地址，格式为host:port，哨兵和集群模式自动发现从节点
+         */
+        private List<String> replicas = new ArrayList<>();
+
+        /**
+         * 本节点写入或删除缓存后，在该时间（毫秒）内读取这些key时仍从主节点读取，避免从节点复制延迟读到旧值，0表示不限制
+         */
+        private long readAfterWriteWindow = 0;
+
+        /**
+         * 客户端分片模式下每个节点在哈希环上的虚拟节点数，越多分布越均匀
+         */
+        private int virtualNodes = 160;
+
+        /**
+         * 读取缓存的超时时间（毫秒），通常小于写入使用的timeout，使redis变慢时尽快改为调用方法，0表示与timeout相同
+         */
+        private int readTimeout = 0;
+
         // Getters and Setters
         public boolean isEnabled() {
             return enabled;
@@ -228,5 +565,767 @@ public class CacheProperties {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+
+        public RedisModeEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(RedisModeEnum mode) {
+            this.mode = mode;
+        }
+
+        public List<String> getNodes() {
+            return nodes;
+        }
+
+        public void setNodes(List<String> nodes) {
+            this.nodes = nodes;
+        }
+
+        public String getMaster() {
+            return master;
+        }
+
+        public void setMaster(String master) {
+            this.master = master;
+        }
+
+        public int getMaxRedirects() {
+            return maxRedirects;
+        }
+
+        public void setMaxRedirects(int maxRedirects) {
+            this.maxRedirects = maxRedirects;
+        }
+
+        public RedisReadFromEnum getReadFrom() {
+            return readFrom;
+        }
+
+        public void setReadFrom(RedisReadFromEnum readFrom) {
+            this.readFrom = readFrom;
+        }
+
+        public List<String> getReplicas() {
+            return replicas;
+        }
+
+        public void setReplicas(List<String> replicas) {
+            this.replicas = replicas;
+        }
+
+        public long getReadAfterWriteWindow() {
+            return readAfterWriteWindow;
+        }
+
+        public void setReadAfterWriteWindow(long readAfterWriteWindow) {
+            this.readAfterWriteWindow = readAfterWriteWindow;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public int getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(int readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+    }
+
+    /**
+     * 分布式加载租约配置，开启后sync=true的缓存在集群内只由一个节点加载
+     */
+    public static class LeaseProperties {
+        /**
+         * 是否启用分布式加载租约
+         */
+        private boolean enabled = false;
+
+        /**
+         * 租约时长（毫秒），持有租约的节点异常退出时，租约到期后其他节点接管加载
+         */
+        private long leaseTime = 5000L;
+
+        /**
+         * 未获得租约的节点等待加载结果的默认最长时间（毫秒）
+         */
+        private long defaultWaitTimeout = 3000L;
+
+        /**
+         * 按cacheName配置的等待最长时间（毫秒）
+         */
+        private Map<String, Long> waitTimeouts = new HashMap<>();
+
+        /**
+         * 加载完成通知的频道名称
+         */
+        private String channel = "cache:lease:channel";
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getLeaseTime() {
+            return leaseTime;
+        }
+
+        public void setLeaseTime(long leaseTime) {
+            this.leaseTime = leaseTime;
+        }
+
+        public long getDefaultWaitTimeout() {
+            return defaultWaitTimeout;
+        }
+
+        public void setDefaultWaitTimeout(long defaultWaitTimeout) {
+            this.defaultWaitTimeout = defaultWaitTimeout;
+        }
+
+        public Map<String, Long> getWaitTimeouts() {
+            return waitTimeouts;
+        }
+
+        public void setWaitTimeouts(Map<String, Long> waitTimeouts) {
+            this.waitTimeouts = waitTimeouts;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * 异步刷新线程池配置，用于过期后返回旧值并在后台重新加载
+     */
+    public static class RefreshProperties {
+        /**
+         * 核心线程数
+         */
+        private int corePoolSize = 2;
+
+        /**
+         * 最大线程数
+         */
+        private int maxPoolSize = 8;
+
+        /**
+         * 等待队列容量，队列已满时放弃本次刷新
+         */
+        private int queueCapacity = 1000;
+
+        // Getters and Setters
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * SCAN策略下按前缀删除缓存的配置
+     */
+    public static class ScanProperties {
+        /**
+         * 每批扫描和删除的key数量
+         */
+        private int batchSize = 500;
+
+        /**
+         * 每批删除后的暂停时长（毫秒），降低对redis的压力
+         */
+        private long pauseMillis = 10L;
+
+        /**
+         * 等待队列容量，队列已满时放弃本次删除并记录错误，不在调用线程中执行
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * 注解要求等待删除完成时的最长等待时间（毫秒）
+         */
+        private long awaitTimeout = 30000L;
+
+        // Getters and Setters
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPauseMillis() {
+            return pauseMillis;
+        }
+
+        public void setPauseMillis(long pauseMillis) {
+            this.pauseMillis = pauseMillis;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getAwaitTimeout() {
+            return awaitTimeout;
+        }
+
+        public void setAwaitTimeout(long awaitTimeout) {
+            this.awaitTimeout = awaitTimeout;
+        }
+    }
+
+    /**
+     * 跨节点本地缓存失效通知配置
+     */
+    public static class BusProperties {
+        /**
+         * 传输方式：NONE、REDIS、JGROUPS
+         */
+        private InvalidationBusTypeEnum type = InvalidationBusTypeEnum.NONE;
+
+        /**
+         * REDIS方式使用的频道
+         */
+        private String channel = "cache:invalidation:channel";
+
+        /**
+         * 合并发送的间隔（毫秒）
+         */
+        private long batchInterval = 10L;
+
+        /**
+         * 每批最多合并的key和前缀数量，达到后立即发送
+         */
+        private int maxBatchSize = 500;
+
+        /**
+         * 空闲时发送心跳的间隔（毫秒），用于及时发现丢失的消息
+         */
+        private long heartbeatInterval = 5000L;
+
+        /**
+         * JGROUPS方式的协议栈配置文件
+         */
+        private String jgroupsConfig = "udp.xml";
+
+        /**
+         * JGROUPS方式的集群名称
+         */
+        private String jgroupsCluster = "yinaicheng-cache";
+
+        // Getters and Setters
+        public InvalidationBusTypeEnum getType() {
+            return type;
+        }
+
+        public void setType(InvalidationBusTypeEnum type) {
+            this.type = type;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        public void setChannel(String channel) {
+            this.channel = channel;
+        }
+
+        public long getBatchInterval() {
+            return batchInterval;
+        }
+
+        public void setBatchInterval(long batchInterval) {
+            this.batchInterval = batchInterval;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public long getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(long heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public String getJgroupsConfig() {
+            return jgroupsConfig;
+        }
+
+        public void setJgroupsConfig(String jgroupsConfig) {
+            this.jgroupsConfig = jgroupsConfig;
+        }
+
+        public String getJgroupsCluster() {
+            return jgroupsCluster;
+        }
+
+        public void setJgroupsCluster(String jgroupsCluster) {
+            this.jgroupsCluster = jgroupsCluster;
+        }
+    }
+
+    /**
+     * 缓存值编解码配置
+     */
+    public static class CodecProperties {
+        /**
+         * 默认使用的编解码器名称：fastjson、fst或自定义编解码器的名称
+         */
+        private String defaultCodec = "fastjson";
+
+        /**
+         * cacheName与编解码器名称的映射，未配置的cacheName使用默认编解码器
+         */
+        private Map<String, String> cacheCodecs = new HashMap<>();
+
+        // Getters and Setters
+        public String getDefaultCodec() {
+            return defaultCodec;
+        }
+
+        public void setDefaultCodec(String defaultCodec) {
+            this.defaultCodec = defaultCodec;
+        }
+
+        public Map<String, String> getCacheCodecs() {
+            return cacheCodecs;
+        }
+
+        public void setCacheCodecs(Map<String, String> cacheCodecs) {
+            this.cacheCodecs = cacheCodecs;
+        }
+    }
+
+    /**
+     * 缓存值压缩配置
+     */
+    public static class CompressionProperties {
+        /**
+         * 默认使用的压缩算法名称：none（不压缩）、deflate、gzip、snappy或自定义压缩算法的名称
+         */
+        private String defaultAlgorithm = "none";
+
+        /**
+         * cacheName与压缩算法名称的映射，未配置的cacheName使用默认压缩算法
+         */
+        private Map<String, String> cacheAlgorithms = new HashMap<>();
+
+        /**
+         * 默认的压缩阈值（字节），编码后不小于该长度的缓存值才压缩
+         */
+        private int threshold = 4096;
+
+        /**
+         * cacheName与压缩阈值的映射，未配置的cacheName使用默认压缩阈值
+         */
+        private Map<String, Integer> cacheThresholds = new HashMap<>();
+
+        // Getters and Setters
+        public String getDefaultAlgorithm() {
+            return defaultAlgorithm;
+        }
+
+        public void setDefaultAlgorithm(String defaultAlgorithm) {
+            this.defaultAlgorithm = defaultAlgorithm;
+        }
+
+        public Map<String, String> getCacheAlgorithms() {
+            return cacheAlgorithms;
+        }
+
+        public void setCacheAlgorithms(Map<String, String> cacheAlgorithms) {
+            this.cacheAlgorithms = cacheAlgorithms;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(int threshold) {
+            this.threshold = threshold;
+        }
+
+        public Map<String, Integer> getCacheThresholds() {
+            return cacheThresholds;
+        }
+
+        public void setCacheThresholds(Map<String, Integer> cacheThresholds) {
+            this.cacheThresholds = cacheThresholds;
+        }
+    }
+
+    /**
+     * redis熔断配置：统计窗口内错误率或慢调用比例超过阈值时打开熔断，打开期间不访问redis，
+     * 等待一段时间后进入半开状态，允许少量试探请求访问redis
+     */
+    public static class CircuitBreakerProperties {
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 错误率阈值（百分比）
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 慢调用比例阈值（百分比）
+         */
+        private int slowCallRateThreshold = 80;
+
+        /**
+         * 超过该耗时（毫秒）的调用记为慢调用
+         */
+        private long slowCallDuration = 500;
+
+        /**
+         * 统计窗口内的调用次数达到该值后才计算错误率和慢调用比例
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 统计窗口长度（秒）
+         */
+        private int window = 10;
+
+        /**
+         * 熔断打开后进入半开状态前的等待时间（毫秒）
+         */
+        private long waitDurationInOpenState = 5000;
+
+        /**
+         * 半开状态允许的试探请求数量
+         */
+        private int permittedCallsInHalfOpenState = 3;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public long getSlowCallDuration() {
+            return slowCallDuration;
+        }
+
+        public void setSlowCallDuration(long slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+
+        public void setWindow(int window) {
+            this.window = window;
+        }
+
+        public long getWaitDurationInOpenState() {
+            return waitDurationInOpenState;
+        }
+
+        public void setWaitDurationInOpenState(long waitDurationInOpenState) {
+            this.waitDurationInOpenState = waitDurationInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+    }
+
+    /**
+     * 单个cacheName的配置，未配置的项使用全局配置
+     */
+    public static class CacheNameProperties {
+        /**
+         * 单独使用的Redis连接，未配置时使用yinaicheng.cache.redis，其中未配置的项同样使用yinaicheng.cache.redis中的配置；
+         * 前缀索引、前缀版本号和加载租约仍使用yinaicheng.cache.redis
+         */
+        private CacheNameRedisProperties redis;
+
+        /**
+         * 缓存时长（分钟），实际缓存时长在该值和两倍之间随机，覆盖注解中的duration
+         */
+        private Integer duration;
+
+        /**
+         * 空值的缓存时长（秒），覆盖yinaicheng.cache.null-value-expiration
+         */
+        private Long nullValueExpiration;
+
+        /**
+         * 编解码器名称，覆盖yinaicheng.cache.codec中的配置
+         */
+        private String codec;
+
+        // Getters and Setters
+        public CacheNameRedisProperties getRedis() {
+            return redis;
+        }
+
+        public void setRedis(CacheNameRedisProperties redis) {
+            this.redis = redis;
+        }
+
+        public Integer getDuration() {
+            return duration;
+        }
+
+        public void setDuration(Integer duration) {
+            this.duration = duration;
+        }
+
+        public Long getNullValueExpiration() {
+            return nullValueExpiration;
+        }
+
+        public void setNullValueExpiration(Long nullValueExpiration) {
+            this.nullValueExpiration = nullValueExpiration;
+        }
+
+        public String getCodec() {
+            return codec;
+        }
+
+        public void setCodec(String codec) {
+            this.codec = codec;
+        }
+    }
+
+    /**
+     * 单个cacheName单独使用的Redis连接配置，未配置的项使用yinaicheng.cache.redis中的配置
+     */
+    public static class CacheNameRedisProperties {
+        /**
+         * 是否启用单独的Redis连接
+         */
+        private boolean enabled = true;
+
+        /**
+         * Redis数据库索引
+         */
+        private Integer database;
+
+        /**
+         * Redis服务器地址
+         */
+        private String host;
+
+        /**
+         * Redis服务器端口
+         */
+        private Integer port;
+
+        /**
+         * Redis密码
+         */
+        private String password;
+
+        /**
+         * 连接超时时间（毫秒）
+         */
+        private Integer timeout;
+
+        /**
+         * 部署模式，未配置时：配置了host或port为STANDALONE，否则使用全局配置的模式
+         */
+        private RedisModeEnum mode;
+
+        /**
+         * 哨兵模式的哨兵地址或集群模式的节点地址，格式为host:port
+         */
+        private List<String> nodes;
+
+        /**
+         * 哨兵模式的主节点名称
+         */
+        private String master;
+
+        /**
+         * 集群模式的最大重定向次数
+         */
+        private Integer maxRedirects;
+
+        /**
+         * 以全局配置补全未配置的项
+         */
+        public RedisCacheProperties merge(RedisCacheProperties global) {
+            RedisCacheProperties merged = new RedisCacheProperties();
+            merged.setEnabled(enabled);
+            merged.setDatabase(database != null ? database : global.getDatabase());
+            merged.setHost(host != null ? host : global.getHost());
+            merged.setPort(port != null ? port : global.getPort());
+            merged.setPassword(password != null ? password : global.getPassword());
+            merged.setTimeout(timeout != null ? timeout : global.getTimeout());
+            if (mode != null) {
+                merged.setMode(mode);
+            } else {
+                /*只配置了地址时按单机连接该地址，不沿用全局的哨兵或集群节点*/
+                merged.setMode(host != null || port != null ? RedisModeEnum.STANDALONE : global.getMode());
+            }
+            merged.setNodes(nodes != null ? nodes : global.getNodes());
+            merged.setMaster(master != null ? master : global.getMaster());
+            merged.setMaxRedirects(maxRedirects != null ? maxRedirects : global.getMaxRedirects());
+            return merged;
+        }
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getDatabase() {
+            return database;
+        }
+
+        public void setDatabase(Integer database) {
+            this.database = database;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public Integer getPort() {
+            return port;
+        }
+
+        public void setPort(Integer port) {
+            this.port = port;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Integer getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Integer timeout) {
+            this.timeout = timeout;
+        }
+
+        public RedisModeEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(RedisModeEnum mode) {
+            this.mode = mode;
+        }
+
+        public List<String> getNodes() {
+            return nodes;
+        }
+
+        public void setNodes(List<String> nodes) {
+            this.nodes = nodes;
+        }
+
+        public String getMaster() {
+            return master;
+        }
+
+        public void setMaster(String master) {
+            this.master = master;
+        }
+
+        public Integer getMaxRedirects() {
+            return maxRedirects;
+        }
+
+        public void setMaxRedirects(Integer maxRedirects) {
+            this.maxRedirects = maxRedirects;
+        }
     }
-}
\ No newline at end of file
+}
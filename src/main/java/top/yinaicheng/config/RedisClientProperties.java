@@ -0,0 +1,84 @@
+package top.yinaicheng.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import top.yinaicheng.constant.RedisClientTypeEnum;
+
+/**
+ * Redis客户端配置属性，缓存、限流和安全验签共用
+ * @author yinaicheng
+ */
+@ConfigurationProperties(prefix = "yinaicheng.redis")
+public class RedisClientProperties {
+
+    /**
+     * Redis客户端类型：jedis（默认）或lettuce
+     */
+    private RedisClientTypeEnum clientType = RedisClientTypeEnum.JEDIS;
+
+    /**
+     * Lettuce客户端配置
+     */
+    private LettuceProperties lettuce = new LettuceProperties();
+
+    // Getters and Setters
+    public RedisClientTypeEnum getClientType() {
+        return clientType;
+    }
+
+    public void setClientType(RedisClientTypeEnum clientType) {
+        this.clientType = clientType;
+    }
+
+    public LettuceProperties getLettuce() {
+        return lettuce;
+    }
+
+    public void setLettuce(LettuceProperties lettuce) {
+        this.lettuce = lettuce;
+    }
+
+    /**
+     * Lettuce客户端配置
+     */
+    public static class LettuceProperties {
+        /**
+         * 是否自动合并并发命令的flush，多个线程同时发送的命令合并为一次网络写入
+         */
+        private boolean autoPipelining = true;
+
+        /**
+         * 连续读取响应期间最多合并的flush次数，达到后立即写入
+         */
+        private int maxPipelinedFlushes = 256;
+
+        /**
+         * IO线程数，0表示使用Lettuce默认值（CPU核数）
+         */
+        private int ioThreadPoolSize = 0;
+
+        // Getters and Setters
+        public boolean isAutoPipelining() {
+            return autoPipelining;
+        }
+
+        public void setAutoPipelining(boolean autoPipelining) {
+            this.autoPipelining = autoPipelining;
+        }
+
+        public int getMaxPipelinedFlushes() {
+            return maxPipelinedFlushes;
+        }
+
+        public void setMaxPipelinedFlushes(int maxPipelinedFlushes) {
+            this.maxPipelinedFlushes = maxPipelinedFlushes;
+        }
+
+        public int getIoThreadPoolSize() {
+            return ioThreadPoolSize;
+        }
+
+        public void setIoThreadPoolSize(int ioThreadPoolSize) {
+            this.ioThreadPoolSize = ioThreadPoolSize;
+        }
+    }
+}
@@ -3,15 +3,15 @@ package top.yinaicheng.config;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
-import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -20,68 +20,46 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
  * @author yinaicheng
  */
 @Configuration
-@EnableConfigurationProperties({CacheProperties.class, LimitProperties.class, SecurityProperties.class})
+@EnableConfigurationProperties({CacheProperties.class, LimitProperties.class, SecurityProperties.class, RedisClientProperties.class})
 @ConditionalOnProperty(prefix = "yinaicheng", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class RedisConfig {
 
+    /**
+     * Redis连接工厂注册表，按yinaicheng.redis.client-type创建Jedis或Lettuce连接工厂，并负责销毁
+     */
+    @Bean(name = "redisConnectionFactoryRegistry")
+    public RedisConnectionFactoryRegistry redisConnectionFactoryRegistry(RedisClientProperties redisClientProperties) {
+        return new RedisConnectionFactoryRegistry(redisClientProperties);
+    }
+
     /**
      * 缓存专用的Redis连接工厂
      */
-    @Bean(name = "cacheRedisConnectionFactory")
+    @Bean(name = "cacheRedisConnectionFactory", destroyMethod = "")
     @ConditionalOnProperty(prefix = "yinaicheng.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
-    public RedisConnectionFactory cacheRedisConnectionFactory(CacheProperties cacheProperties) {
-        CacheProperties.RedisCacheProperties redis = cacheProperties.getRedis();
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
-        config.setHostName(redis.getHost());
-        config.setPort(redis.getPort());
-        config.setDatabase(redis.getDatabase());
-        if (redis.getPassword() != null && !redis.getPassword().isEmpty()) {
-            config.setPassword(redis.getPassword());
-        }
-        
-        JedisConnectionFactory jedisConnectionFactory = new JedisConnectionFactory(config);
-        jedisConnectionFactory.afterPropertiesSet();
-        return jedisConnectionFactory;
+    public RedisConnectionFactory cacheRedisConnectionFactory(CacheProperties cacheProperties,
+                                                              RedisConnectionFactoryRegistry redisConnectionFactoryRegistry) {
+        return redisConnectionFactoryRegistry.getConnectionFactory(cacheProperties.getRedis());
     }
 
     /**
      * 限流专用的Redis连接工厂
      */
-    @Bean(name = "limitRedisConnectionFactory")
+    @Bean(name = "limitRedisConnectionFactory", destroyMethod = "")
     @ConditionalOnProperty(prefix = "yinaicheng.limit", name = "enabled", havingValue = "true", matchIfMissing = true)
-    public RedisConnectionFactory limitRedisConnectionFactory(LimitProperties limitProperties) {
-        LimitProperties.RedisProperties redis = limitProperties.getRedis();
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
-        config.setHostName(redis.getHost());
-        config.setPort(redis.getPort());
-        config.setDatabase(redis.getDatabase());
-        if (redis.getPassword() != null && !redis.getPassword().isEmpty()) {
-            config.setPassword(redis.getPassword());
-        }
-        
-        JedisConnectionFactory jedisConnectionFactory = new JedisConnectionFactory(config);
-        jedisConnectionFactory.afterPropertiesSet();
-        return jedisConnectionFactory;
+    public RedisConnectionFactory limitRedisConnectionFactory(LimitProperties limitProperties,
+                                                              RedisConnectionFactoryRegistry redisConnectionFactoryRegistry) {
+        return redisConnectionFactoryRegistry.getConnectionFactory(limitProperties.getRedis());
     }
 
     /**
      * 安全验签专用的Redis连接工厂
      */
-    @Bean(name = "securityRedisConnectionFactory")
+    @Bean(name = "securityRedisConnectionFactory", destroyMethod = "")
     @ConditionalOnProperty(prefix = "yinaicheng.security", name = "enabled", havingValue = "true", matchIfMissing = true)
-    public RedisConnectionFactory securityRedisConnectionFactory(SecurityProperties securityProperties) {
-        SecurityProperties.RedisProperties redis = securityProperties.getRedis();
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
-        config.setHostName(redis.getHost());
-        config.setPort(redis.getPort());
-        config.setDatabase(redis.getDatabase());
-        if (redis.getPassword() != null && !redis.getPassword().isEmpty()) {
-            config.setPassword(redis.getPassword());
-        }
-        
-        JedisConnectionFactory jedisConnectionFactory = new JedisConnectionFactory(config);
-        jedisConnectionFactory.afterPropertiesSet();
-        return jedisConnectionFactory;
+    public RedisConnectionFactory securityRedisConnectionFactory(SecurityProperties securityProperties,
+                                                                 RedisConnectionFactoryRegistry redisConnectionFactoryRegistry) {
+        return redisConnectionFactoryRegistry.getConnectionFactory(securityProperties.getRedis());
     }
 
     /**
@@ -146,19 +124,21 @@ public class RedisConfig {
      */
     @Bean(name = "data_governance_redis")
     @ConditionalOnMissingBean(name = "data_governance_redis")
-    public RedisTemplate<String, Object> dataGovernanceRedis(CacheProperties cacheProperties) {
-        CacheProperties.RedisCacheProperties redis = cacheProperties.getRedis();
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
-        config.setHostName(redis.getHost());
-        config.setPort(redis.getPort());
-        config.setDatabase(redis.getDatabase());
-        if (redis.getPassword() != null && !redis.getPassword().isEmpty()) {
-            config.setPassword(redis.getPassword());
-        }
-        
-        JedisConnectionFactory jedisConnectionFactory = new JedisConnectionFactory(config);
-        jedisConnectionFactory.afterPropertiesSet();
-        
-        return createRedisTemplate(jedisConnectionFactory);
+    public RedisTemplate<String, Object> dataGovernanceRedis(CacheProperties cacheProperties,
+                                                             RedisConnectionFactoryRegistry redisConnectionFactoryRegistry) {
+        /*使用Lettuce时与缓存专用的连接工厂共用连接*/
+        return createRedisTemplate(redisConnectionFactoryRegistry.getConnectionFactory(cacheProperties.getRedis()));
+    }
+
+    /**
+     * 缓存专用的Redis消息监听容器，与缓存数据使用同一Redis
+     */
+    @Bean(name = "cacheRedisMessageListenerContainer")
+    @ConditionalOnMissingBean(name = "cacheRedisMessageListenerContainer")
+    public RedisMessageListenerContainer cacheRedisMessageListenerContainer(
+            @Qualifier("data_governance_redis") RedisTemplate<String, Object> dataGovernanceRedis) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(dataGovernanceRedis.getConnectionFactory());
+        return container;
     }
-}
\ No newline at end of file
+}
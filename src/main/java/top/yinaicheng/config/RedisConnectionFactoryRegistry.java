@@ -0,0 +1,299 @@
+package top.yinaicheng.config;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.lettuce.core.resource.NettyCustomizer;
+import io.netty.channel.Channel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import top.yinaicheng.constant.RedisClientTypeEnum;
+import top.yinaicheng.constant.RedisModeEnum;
+import top.yinaicheng.constant.RedisReadFromEnum;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis连接工厂注册表：按配置的客户端类型和部署模式（单机、哨兵、集群）创建连接工厂，并统一在容器关闭时销毁；
+ * 使用Lettuce时，地址、数据库和密码相同的子系统共用同一个连接工厂及其共享连接
+ * @author yinaicheng
+ */
+public class RedisConnectionFactoryRegistry implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisConnectionFactoryRegistry.class);
+
+    /**
+     * Lettuce集群拓扑的定期刷新间隔
+     */
+    private static final Duration CLUSTER_TOPOLOGY_REFRESH_PERIOD = Duration.ofSeconds(30);
+
+    private final RedisClientProperties redisClientProperties;
+
+    /**
+     * Lettuce客户端共用的IO线程和事件循环，使用Jedis时为null
+     */
+    private final ClientResources clientResources;
+
+    /**
+     * 连接地址与Lettuce连接工厂的映射
+     */
+    private final Map<String, LettuceConnectionFactory> lettuceConnectionFactoryMap = new ConcurrentHashMap<>();
+
+    /**
+     * 已创建的全部连接工厂
+     */
+    private final List<RedisConnectionFactory> connectionFactories = new ArrayList<>();
+
+    public RedisConnectionFactoryRegistry(RedisClientProperties redisClientProperties) {
+        this.redisClientProperties = redisClientProperties;
+        this.clientResources = redisClientProperties.getClientType() == RedisClientTypeEnum.LETTUCE
+                ? createClientResources(redisClientProperties.getLettuce()) : null;
+    }
+
+    /**
+     * 获取连接工厂，使用Jedis时每次创建新的连接工厂，使用Lettuce时相同连接地址返回同一个连接工厂
+     */
+    public synchronized RedisConnectionFactory getConnectionFactory(RedisConnectionProperties redis) {
+        /*客户端分片模式下该连接工厂连接host和port指定的单机节点*/
+        RedisModeEnum mode = redis.getMode() == RedisModeEnum.SHARDED ? RedisModeEnum.STANDALONE : redis.getMode();
+        return createConnectionFactory(createConfiguration(redis), redis, mode + ":" + getAddress(redis), redis.getTimeout());
+    }
+
+    /**
+     * 获取客户端分片模式下nodes中各节点的连接工厂，按配置顺序返回节点地址与连接工厂的映射
+     */
+    public synchronized Map<String, RedisConnectionFactory> getShardConnectionFactories(RedisConnectionProperties redis) {
+        Map<String, RedisConnectionFactory> shardConnectionFactoryMap = new LinkedHashMap<>();
+        for (String node : requireNodes(redis)) {
+            String host = getNodeHost(node);
+            int port = getNodePort(node);
+            shardConnectionFactoryMap.put(host + ":" + port, createConnectionFactory(createStandaloneConfiguration(host, port, redis),
+                    redis, RedisModeEnum.STANDALONE + ":" + host + ":" + port, redis.getTimeout()));
+        }
+        return shardConnectionFactoryMap;
+    }
+
+    /**
+     * 使用Jedis时创建新的连接工厂，使用Lettuce时相同连接地址返回同一个连接工厂
+     */
+    private RedisConnectionFactory createConnectionFactory(RedisConfiguration config, RedisConnectionProperties redis, String address,
+                                                           int timeoutMillis) {
+        if (redisClientProperties.getClientType() == RedisClientTypeEnum.JEDIS) {
+            Duration timeout = Duration.ofMillis(timeoutMillis);
+            JedisClientConfiguration clientConfig = JedisClientConfiguration.builder()
+                    .connectTimeout(timeout).readTimeout(timeout).usePooling().build();
+            JedisConnectionFactory jedisConnectionFactory;
+            if (config instanceof RedisClusterConfiguration) {
+                jedisConnectionFactory = new JedisConnectionFactory((RedisClusterConfiguration) config, clientConfig);
+            } else if (config instanceof RedisSentinelConfiguration) {
+                jedisConnectionFactory = new JedisConnectionFactory((RedisSentinelConfiguration) config, clientConfig);
+            } else {
+                jedisConnectionFactory = new JedisConnectionFactory((RedisStandaloneConfiguration) config, clientConfig);
+            }
+            jedisConnectionFactory.afterPropertiesSet();
+            connectionFactories.add(jedisConnectionFactory);
+            return jedisConnectionFactory;
+        }
+        return getLettuceConnectionFactory(address + "/" + redis.getDatabase() + "#" + Objects.hashCode(redis.getPassword()),
+                config, redis, null, timeoutMillis);
+    }
+
+    /**
+     * 获取读取缓存使用的连接工厂：按读取策略选择节点，单机模式配置了从节点时按主从方式连接，命令超时时间为readTimeout；
+     * 读取策略为MASTER或不可用时，只在配置了readTimeout时返回连接主节点的连接工厂，否则返回null，由调用方使用写入的连接工厂读取
+     */
+    public synchronized RedisConnectionFactory getReadConnectionFactory(CacheProperties.RedisCacheProperties redis) {
+        if (redis.getReadFrom() == RedisReadFromEnum.MASTER) {
+            return getReadTimeoutConnectionFactory(redis);
+        }
+        if (redis.getMode() == RedisModeEnum.SHARDED) {
+            logger.warn("客户端分片模式不支持从从节点读取缓存，读取策略{}不生效", redis.getReadFrom());
+            return getReadTimeoutConnectionFactory(redis);
+        }
+        if (redisClientProperties.getClientType() != RedisClientTypeEnum.LETTUCE) {
+            logger.warn("从从节点读取缓存需要使用Lettuce客户端，读取策略{}不生效", redis.getReadFrom());
+            return getReadTimeoutConnectionFactory(redis);
+        }
+        RedisConfiguration config;
+        String address;
+        if (redis.getMode() == RedisModeEnum.STANDALONE) {
+            if (redis.getReplicas() == null || redis.getReplicas().isEmpty()) {
+                logger.warn("单机模式未配置从节点，读取策略{}不生效", redis.getReadFrom());
+                return getReadTimeoutConnectionFactory(redis);
+            }
+            RedisStaticMasterReplicaConfiguration masterReplicaConfig = new RedisStaticMasterReplicaConfiguration(redis.getHost(), redis.getPort());
+            for (String replica : redis.getReplicas()) {
+                masterReplicaConfig.addNode(getNodeHost(replica), getNodePort(replica));
+            }
+            masterReplicaConfig.setDatabase(redis.getDatabase());
+            masterReplicaConfig.setPassword(RedisPassword.of(redis.getPassword()));
+            config = masterReplicaConfig;
+            address = getAddress(redis) + "," + String.join(",", redis.getReplicas());
+        } else {
+            config = createConfiguration(redis);
+            address = getAddress(redis);
+        }
+        address = redis.getMode() + ":" + address + "/" + redis.getDatabase() + "#" + Objects.hashCode(redis.getPassword())
+                + "?" + redis.getReadFrom().getCode();
+        return getLettuceConnectionFactory(address, config, redis, ReadFrom.valueOf(redis.getReadFrom().getCode()),
+                getReadTimeout(redis));
+    }
+
+    /**
+     * 获取连接主节点、超时时间为readTimeout的连接工厂，未配置readTimeout或使用客户端分片模式时返回null
+     */
+    private RedisConnectionFactory getReadTimeoutConnectionFactory(CacheProperties.RedisCacheProperties redis) {
+        if (redis.getReadTimeout() <= 0 || redis.getMode() == RedisModeEnum.SHARDED) {
+            return null;
+        }
+        return createConnectionFactory(createConfiguration(redis), redis, redis.getMode() + ":" + getAddress(redis), redis.getReadTimeout());
+    }
+
+    private int getReadTimeout(CacheProperties.RedisCacheProperties redis) {
+        return redis.getReadTimeout() > 0 ? redis.getReadTimeout() : redis.getTimeout();
+    }
+
+    /**
+     * 相同连接地址和超时时间返回同一个Lettuce连接工厂
+     */
+    private RedisConnectionFactory getLettuceConnectionFactory(String address, RedisConfiguration config,
+                                                               RedisConnectionProperties redis, ReadFrom readFrom, int timeoutMillis) {
+        return lettuceConnectionFactoryMap.computeIfAbsent(address + "@" + timeoutMillis, key -> {
+            LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder()
+                    .clientResources(clientResources).commandTimeout(Duration.ofMillis(timeoutMillis));
+            if (redis.getMode() == RedisModeEnum.CLUSTER) {
+                /*节点故障转移或槽迁移后收到MOVED、ASK重定向时刷新拓扑，并定期刷新兜底*/
+                builder.clientOptions(ClusterClientOptions.builder().topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                        .enableAllAdaptiveRefreshTriggers().enablePeriodicRefresh(CLUSTER_TOPOLOGY_REFRESH_PERIOD).build()).build());
+            }
+            if (readFrom != null) {
+                builder.readFrom(readFrom);
+            }
+            LettuceConnectionFactory lettuceConnectionFactory = new LettuceConnectionFactory(config, builder.build());
+            /*非阻塞命令共享同一个连接，阻塞命令、事务和流水线使用独立连接*/
+            lettuceConnectionFactory.setShareNativeConnection(true);
+            lettuceConnectionFactory.afterPropertiesSet();
+            connectionFactories.add(lettuceConnectionFactory);
+            return lettuceConnectionFactory;
+        });
+    }
+
+    /**
+     * 按部署模式创建连接配置
+     */
+    private RedisConfiguration createConfiguration(RedisConnectionProperties redis) {
+        RedisPassword password = RedisPassword.of(redis.getPassword());
+        switch (redis.getMode()) {
+            case CLUSTER:
+                if (redis.getDatabase() != 0) {
+                    logger.warn("Redis集群只能使用0号数据库，忽略配置的数据库{}", redis.getDatabase());
+                }
+                RedisClusterConfiguration clusterConfig = new RedisClusterConfiguration(requireNodes(redis));
+                clusterConfig.setMaxRedirects(redis.getMaxRedirects());
+                clusterConfig.setPassword(password);
+                return clusterConfig;
+            case SENTINEL:
+                if (redis.getMaster() == null || redis.getMaster().isEmpty()) {
+                    throw new IllegalArgumentException("Redis哨兵模式必须配置master");
+                }
+                RedisSentinelConfiguration sentinelConfig = new RedisSentinelConfiguration(redis.getMaster(), new HashSet<>(requireNodes(redis)));
+                sentinelConfig.setDatabase(redis.getDatabase());
+                sentinelConfig.setPassword(password);
+                return sentinelConfig;
+            case STANDALONE:
+            case SHARDED:
+            default:
+                return createStandaloneConfiguration(redis.getHost(), redis.getPort(), redis);
+        }
+    }
+
+    private RedisStandaloneConfiguration createStandaloneConfiguration(String host, int port, RedisConnectionProperties redis) {
+        RedisStandaloneConfiguration standaloneConfig = new RedisStandaloneConfiguration(host, port);
+        standaloneConfig.setDatabase(redis.getDatabase());
+        standaloneConfig.setPassword(RedisPassword.of(redis.getPassword()));
+        return standaloneConfig;
+    }
+
+    private String getNodeHost(String node) {
+        return node.substring(0, node.lastIndexOf(':')).trim();
+    }
+
+    private int getNodePort(String node) {
+        return Integer.parseInt(node.substring(node.lastIndexOf(':') + 1).trim());
+    }
+
+    private List<String> requireNodes(RedisConnectionProperties redis) {
+        if (redis.getNodes() == null || redis.getNodes().isEmpty()) {
+            throw new IllegalArgumentException("Redis" + redis.getMode().getDescription() + "模式必须配置nodes");
+        }
+        return redis.getNodes();
+    }
+
+    private String getAddress(RedisConnectionProperties redis) {
+        if (redis.getMode() == RedisModeEnum.STANDALONE || redis.getMode() == RedisModeEnum.SHARDED) {
+            return redis.getHost() + ":" + redis.getPort();
+        }
+        return redis.getMaster() + "@" + String.join(",", redis.getNodes());
+    }
+
+    @Override
+    public synchronized void destroy() {
+        for (RedisConnectionFactory connectionFactory : connectionFactories) {
+            if (connectionFactory instanceof DisposableBean) {
+                try {
+                    ((DisposableBean) connectionFactory).destroy();
+                } catch (Exception exception) {
+                    logger.warn("销毁Redis连接工厂出错，原因是{}", exception.getMessage());
+                }
+            }
+        }
+        connectionFactories.clear();
+        lettuceConnectionFactoryMap.clear();
+        if (clientResources != null) {
+            clientResources.shutdown();
+        }
+    }
+
+    /**
+     * 创建Lettuce客户端共用的资源，开启自动流水线时在每个连接上合并flush：
+     * 多个线程并发发送的命令先写入缓冲区，在读取响应的间隙一次写入网络，减少系统调用和网络包数量
+     */
+    private ClientResources createClientResources(RedisClientProperties.LettuceProperties lettuce) {
+        DefaultClientResources.Builder builder = DefaultClientResources.builder();
+        if (lettuce.getIoThreadPoolSize() > 0) {
+            builder.ioThreadPoolSize(lettuce.getIoThreadPoolSize());
+        }
+        if (lettuce.isAutoPipelining()) {
+            int maxPipelinedFlushes = lettuce.getMaxPipelinedFlushes();
+            builder.nettyCustomizer(new NettyCustomizer() {
+                @Override
+                public void afterChannelInitialized(Channel channel) {
+                    channel.pipeline().addFirst(new FlushConsolidationHandler(maxPipelinedFlushes, true));
+                }
+            });
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,51 @@
+package top.yinaicheng.config;
+
+import top.yinaicheng.constant.RedisModeEnum;
+
+import java.util.List;
+
+/**
+ * 缓存、限流和安全验签共用的Redis连接配置
+ * @author yinaicheng
+ */
+public interface RedisConnectionProperties {
+
+    /**
+     * 部署模式
+     */
+    RedisModeEnum getMode();
+
+    /**
+     * 单机模式的服务器地址
+     */
+    String getHost();
+
+    /**
+     * 单机模式的服务器端口
+     */
+    int getPort();
+
+    /**
+     * 哨兵模式的哨兵地址或集群模式的节点地址，格式为host:port
+     */
+    List<String> getNodes();
+
+    /**
+     * 哨兵模式的主节点名称
+     */
+    String getMaster();
+
+    /**
+     * 集群模式的最大重定向次数
+     */
+    int getMaxRedirects();
+
+    String getPassword();
+
+    int getDatabase();
+
+    /**
+     * 连接和命令超时时间（毫秒）
+     */
+    int getTimeout();
+}
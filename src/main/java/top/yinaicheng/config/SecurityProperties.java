@@ -1,6 +1,10 @@
 package top.yinaicheng.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import top.yinaicheng.constant.RedisModeEnum;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 安全验签配置属性
@@ -130,7 +134,7 @@ public class SecurityProperties {
     /**
      * Redis配置
      */
-    public static class RedisProperties {
+    public static class RedisProperties implements RedisConnectionProperties {
         /**
          * Redis服务器地址
          */
@@ -156,6 +160,26 @@ public class SecurityProperties {
          */
         private int timeout = 2000;
 
+        /**
+         * 部署模式：STANDALONE（默认）、SENTINEL或CLUSTER
+         */
+        private RedisModeEnum mode = RedisModeEnum.STANDALONE;
+
+        /**
+         * 哨兵模式的哨兵地址或集群模式的节点地址，格式为host:port
+         */
+        private List<String> nodes = new ArrayList<>();
+
+        /**
+         * 哨兵模式的主节点名称
+         */
+        private String master;
+
+        /**
+         * 集群模式的最大重定向次数
+         */
+        private int maxRedirects = 5;
+
         // Getters and Setters
         public String getHost() {
             return host;
@@ -196,5 +220,37 @@ public class SecurityProperties {
         public void setTimeout(int timeout) {
             this.timeout = timeout;
         }
+
+        public RedisModeEnum getMode() {
+            return mode;
+        }
+
+        public void setMode(RedisModeEnum mode) {
+            this.mode = mode;
+        }
+
+        public List<String> getNodes() {
+            return nodes;
+        }
+
+        public void setNodes(List<String> nodes) {
+            this.nodes = nodes;
+        }
+
+        public String getMaster() {
+            return master;
+        }
+
+        public void setMaster(String master) {
+            this.master = master;
+        }
+
+        public int getMaxRedirects() {
+            return maxRedirects;
+        }
+
+        public void setMaxRedirects(int maxRedirects) {
+            this.maxRedirects = maxRedirects;
+        }
     }
 }
\ No newline at end of file
@@ -14,7 +14,8 @@ import org.springframework.context.annotation.Import;
 @EnableConfigurationProperties({
     CacheProperties.class,
     LimitProperties.class,
-    SecurityProperties.class
+    SecurityProperties.class,
+    RedisClientProperties.class
 })
 @ComponentScan(basePackages = "top.yinaicheng")
 @Import({
@@ -0,0 +1,39 @@
+package top.yinaicheng.constant;
+
+/**
+ * 熔断器状态枚举
+ * @author yinaicheng
+ */
+public enum CircuitBreakerStateEnum {
+
+    /**
+     * 关闭，正常访问redis并统计错误率和慢调用比例
+     */
+    CLOSED("closed", "关闭"),
+
+    /**
+     * 打开，不访问redis，直接从本地缓存或调用方法获取值
+     */
+    OPEN("open", "打开"),
+
+    /**
+     * 半开，只允许少量试探请求访问redis，全部成功后关闭，任一失败后重新打开
+     */
+    HALF_OPEN("halfOpen", "半开");
+
+    private final String code;
+    private final String description;
+
+    CircuitBreakerStateEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
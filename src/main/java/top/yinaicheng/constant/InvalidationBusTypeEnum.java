@@ -0,0 +1,39 @@
+package top.yinaicheng.constant;
+
+/**
+ * 跨节点本地缓存失效通知的传输方式枚举
+ * @author yinaicheng
+ */
+public enum InvalidationBusTypeEnum {
+
+    /**
+     * 不通知其他节点
+     */
+    NONE("none", "不通知"),
+
+    /**
+     * 通过redis发布订阅通知
+     */
+    REDIS("redis", "redis发布订阅"),
+
+    /**
+     * 通过JGroups集群通道通知
+     */
+    JGROUPS("jgroups", "JGroups集群通道");
+
+    private final String code;
+    private final String description;
+
+    InvalidationBusTypeEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
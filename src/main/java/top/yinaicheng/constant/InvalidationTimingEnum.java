@@ -0,0 +1,34 @@
+package top.yinaicheng.constant;
+
+/**
+ * 删除缓存的时机枚举
+ * @author yinaicheng
+ */
+public enum InvalidationTimingEnum {
+
+    /**
+     * 方法执行前删除缓存
+     */
+    BEFORE_INVOCATION("before_invocation", "方法执行前删除"),
+
+    /**
+     * 所在事务提交后删除缓存，没有事务时在方法返回后删除
+     */
+    AFTER_COMMIT("after_commit", "事务提交后删除");
+
+    private final String code;
+    private final String description;
+
+    InvalidationTimingEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,39 @@
+package top.yinaicheng.constant;
+
+/**
+ * 按key前缀删除缓存的策略枚举
+ * @author yinaicheng
+ */
+public enum PrefixInvalidationStrategyEnum {
+
+    /**
+     * 写入缓存时将key登记到以前缀命名的索引中，删除时取出索引中的key逐个删除
+     */
+    INDEX("index", "前缀索引"),
+
+    /**
+     * 每个前缀维护一个版本号并拼接到实际的缓存key中，删除时只需版本号加一，旧key随过期时间自然淘汰
+     */
+    GENERATION("generation", "前缀版本号"),
+
+    /**
+     * 删除时在后台通过SCAN游标遍历匹配前缀的key，按批次UNLINK，不维护索引
+     */
+    SCAN("scan", "游标扫描");
+
+    private final String code;
+    private final String description;
+
+    PrefixInvalidationStrategyEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,34 @@
+package top.yinaicheng.constant;
+
+/**
+ * Redis客户端类型枚举
+ * @author yinaicheng
+ */
+public enum RedisClientTypeEnum {
+
+    /**
+     * Jedis，每个命令执行期间独占连接池中的一个连接
+     */
+    JEDIS("jedis", "Jedis连接池"),
+
+    /**
+     * Lettuce，非阻塞命令共享同一个连接，并发命令自动合并发送
+     */
+    LETTUCE("lettuce", "Lettuce共享连接");
+
+    private final String code;
+    private final String description;
+
+    RedisClientTypeEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,44 @@
+package top.yinaicheng.constant;
+
+/**
+ * Redis部署模式枚举
+ * @author yinaicheng
+ */
+public enum RedisModeEnum {
+
+    /**
+     * 单机，使用host和port
+     */
+    STANDALONE("standalone", "单机"),
+
+    /**
+     * 哨兵，使用nodes中的哨兵地址和master
+     */
+    SENTINEL("sentinel", "哨兵"),
+
+    /**
+     * 集群，使用nodes中的集群节点地址，只能使用0号数据库
+     */
+    CLUSTER("cluster", "集群"),
+
+    /**
+     * 客户端分片，缓存值按一致性哈希分布到nodes中的多个单机节点，前缀索引、版本号和加载租约等使用host和port
+     */
+    SHARDED("sharded", "客户端分片");
+
+    private final String code;
+    private final String description;
+
+    RedisModeEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
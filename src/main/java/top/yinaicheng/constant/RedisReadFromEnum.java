@@ -0,0 +1,49 @@
+package top.yinaicheng.constant;
+
+/**
+ * 缓存读取的节点选择策略枚举，写入始终在主节点执行
+ * @author yinaicheng
+ */
+public enum RedisReadFromEnum {
+
+    /**
+     * 只从主节点读取
+     */
+    MASTER("master", "只从主节点读取"),
+
+    /**
+     * 优先从主节点读取，主节点不可用时从从节点读取
+     */
+    MASTER_PREFERRED("masterPreferred", "优先从主节点读取"),
+
+    /**
+     * 优先从从节点读取，从节点不可用时从主节点读取
+     */
+    REPLICA_PREFERRED("replicaPreferred", "优先从从节点读取"),
+
+    /**
+     * 只从从节点读取
+     */
+    REPLICA("replica", "只从从节点读取"),
+
+    /**
+     * 从延迟最低的节点读取
+     */
+    NEAREST("nearest", "从延迟最低的节点读取");
+
+    private final String code;
+    private final String description;
+
+    RedisReadFromEnum(String code, String description) {
+        this.code = code;
+        this.description = description;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
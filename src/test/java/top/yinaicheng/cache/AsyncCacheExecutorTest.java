@@ -0,0 +1,82 @@
+package top.yinaicheng.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import top.yinaicheng.config.CacheProperties;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异步方法缓存线程池测试：redis未命中后在独立的加载线程池或配置的Executor中调用方法，线程池已满时返回失败的结果
+ * @author yinaicheng
+ */
+public class AsyncCacheExecutorTest {
+
+    private AsyncCacheExecutor asyncCacheExecutor;
+
+    @AfterEach
+    public void tearDown() {
+        if (asyncCacheExecutor != null) {
+            asyncCacheExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void loadRunsOnLoadPoolNotOnRedisPool() throws Exception {
+        asyncCacheExecutor = new AsyncCacheExecutor(new CacheProperties(), new DefaultListableBeanFactory());
+        String readThread = asyncCacheExecutor.supply(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        /*在读取redis的线程中发起加载，方法仍在加载线程池中调用*/
+        String loadThread = asyncCacheExecutor.supply(() -> asyncCacheExecutor.load(
+                () -> CompletableFuture.completedFuture(Thread.currentThread().getName())))
+                .thenCompose(future -> future).get(5, TimeUnit.SECONDS);
+        assertTrue(readThread.startsWith("cache-async-"));
+        assertTrue(loadThread.startsWith("cache-async-load-"));
+    }
+
+    @Test
+    public void loadUsesConfiguredExecutorBean() throws Exception {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        Executor executor = command -> new Thread(command, "user-load").start();
+        beanFactory.registerSingleton("userLoadExecutor", executor);
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getAsync().setLoadExecutor("userLoadExecutor");
+        asyncCacheExecutor = new AsyncCacheExecutor(cacheProperties, beanFactory);
+        assertEquals("user-load", asyncCacheExecutor.load(
+                () -> CompletableFuture.completedFuture(Thread.currentThread().getName())).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void fullLoadPoolFailsTheFuture() throws Exception {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getAsync().setCorePoolSize(1);
+        cacheProperties.getAsync().setMaxPoolSize(1);
+        cacheProperties.getAsync().setQueueCapacity(1);
+        asyncCacheExecutor = new AsyncCacheExecutor(cacheProperties, new DefaultListableBeanFactory());
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        CompletableFuture<Object> running = asyncCacheExecutor.load(() -> {
+            try {
+                releaseLatch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return CompletableFuture.completedFuture("running");
+        });
+        CompletableFuture<Object> queued = asyncCacheExecutor.load(() -> CompletableFuture.completedFuture("queued"));
+        CompletableFuture<Object> rejected = asyncCacheExecutor.load(() -> CompletableFuture.completedFuture("rejected"));
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+        releaseLatch.countDown();
+        assertEquals("running", running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,56 @@
+package top.yinaicheng.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import top.yinaicheng.config.CacheProperties;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 异步方法的缓存刷新测试：刷新在方法的异步结果上完成，同一key完成前不重复刷新，完成或出错后可再次刷新
+ * @author yinaicheng
+ */
+public class AsyncCacheRefresherTest {
+
+    private final AsyncCacheRefresher asyncCacheRefresher = new AsyncCacheRefresher(new CacheProperties());
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    @AfterEach
+    public void tearDown() {
+        asyncCacheRefresher.shutdown();
+    }
+
+    @Test
+    public void refreshOfSameKeyIsSkippedUntilFutureCompletes() {
+        CompletableFuture<Object> loadFuture = new CompletableFuture<>();
+        asyncCacheRefresher.refreshAsync("user:1", () -> load(loadFuture));
+        asyncCacheRefresher.refreshAsync("user:1", () -> load(loadFuture));
+        asyncCacheRefresher.refreshAsync("user:2", () -> load(CompletableFuture.completedFuture("user:2")));
+        assertEquals(2, loadCount.get());
+        loadFuture.complete("user:1");
+        asyncCacheRefresher.refreshAsync("user:1", () -> load(CompletableFuture.completedFuture("user:1")));
+        assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void failedRefreshReleasesKey() {
+        CompletableFuture<Object> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new IllegalStateException("加载出错"));
+        asyncCacheRefresher.refreshAsync("user:1", () -> load(failedFuture));
+        asyncCacheRefresher.refreshAsync("user:1", () -> {
+            loadCount.incrementAndGet();
+            throw new IllegalStateException("调用出错");
+        });
+        asyncCacheRefresher.refreshAsync("user:1", () -> load(CompletableFuture.completedFuture("user:1")));
+        assertEquals(3, loadCount.get());
+    }
+
+    private CompletableFuture<Object> load(CompletableFuture<Object> future) {
+        loadCount.incrementAndGet();
+        return future;
+    }
+}
@@ -0,0 +1,57 @@
+package top.yinaicheng.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import top.yinaicheng.config.CacheProperties;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存key生成性能对比：原有String转换加两次正则替换与一次遍历的CacheKeyBuilder；
+ * 运行方式：mvn test-compile 后执行本类的main方法
+ * @author yinaicheng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBuilderBenchmark {
+
+    @Param({"12345", "user name with spaces", "a-fairly-long-composite-key:tenant-42:region-eu-west:page-17:size-100"})
+    private String keyValue;
+
+    private CacheKeyBuilder cacheKeyBuilder;
+
+    @Setup
+    public void setUp() {
+        cacheKeyBuilder = new CacheKeyBuilder(new CacheProperties());
+    }
+
+    @Benchmark
+    public String legacy() {
+        return CacheKeyBuilderTest.legacyExpressionKey("user:", keyValue);
+    }
+
+    @Benchmark
+    public String builder() {
+        return cacheKeyBuilder.build("user:", keyValue);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CacheKeyBuilderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,152 @@
+package top.yinaicheng.cache;
+
+import org.junit.jupiter.api.Test;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.utils.encrypt.MD5Utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static top.yinaicheng.utils.string.StringUtils.CONVERT_OBJECT_TO_STRING;
+
+/**
+ * 缓存key生成器与原有String转换加正则替换逻辑的一致性测试，保证升级后已缓存的key仍能命中
+ * @author yinaicheng
+ */
+public class CacheKeyBuilderTest {
+
+    private static final List<Object> KEY_VALUES = Arrays.asList(
+            null, "null", " null", "", "123", 123L, 45.6, true, "a b", " \t\n\u000B\f\rx y ",
+            "中文 key", " nbsp ", "{tag}value", Arrays.asList(1, 2, 3), Collections.singletonMap("k", "v 1"),
+            new StringBuilder("builder value"), repeat("long value ", 60));
+
+    @Test
+    public void expressionKeysMatchLegacyPath() {
+        CacheKeyBuilder cacheKeyBuilder = new CacheKeyBuilder(new CacheProperties());
+        for (String prefix : Arrays.asList("", "user:", "{user:}", "order:item:")) {
+            for (Object keyValue : KEY_VALUES) {
+                assertEquals(legacyExpressionKey(prefix, keyValue), cacheKeyBuilder.build(prefix, keyValue),
+                        "prefix=" + prefix + ", keyValue=" + keyValue);
+            }
+        }
+    }
+
+    @Test
+    public void literalKeysMatchLegacyPath() {
+        CacheKeyBuilder cacheKeyBuilder = new CacheKeyBuilder(new CacheProperties());
+        for (String literalKey : Arrays.asList("null", "all", " all users ", "\tlist\n", repeat("literal ", 100))) {
+            assertEquals(legacyLiteralKey("user:", literalKey), cacheKeyBuilder.buildLiteral("user:", literalKey));
+        }
+    }
+
+    @Test
+    public void overLongKeysKeepPrefixAndHashRemainder() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setMaxKeyLength(64);
+        CacheKeyBuilder cacheKeyBuilder = new CacheKeyBuilder(cacheProperties);
+        String keyValue = repeat("long value ", 20);
+        String legacyKey = legacyExpressionKey("user:", keyValue);
+        String key = cacheKeyBuilder.build("user:", keyValue);
+        assertEquals("user:md5:" + MD5Utils.createSign(legacyKey.substring("user:".length())), key);
+        assertTrue(key.startsWith("user:"), "按前缀删除仍能匹配摘要后的key");
+        /*摘要结果稳定，不同节点和重启后生成相同的key*/
+        assertEquals(key, new CacheKeyBuilder(cacheProperties).build("user:", keyValue));
+        /*未超过最大长度的key与原有逻辑一致*/
+        assertEquals(legacyExpressionKey("user:", "1 2 3"), cacheKeyBuilder.build("user:", "1 2 3"));
+        /*恰好等于最大长度时不做摘要*/
+        String boundaryValue = repeat("x", 64 - "user:".length());
+        assertEquals("user:" + boundaryValue, cacheKeyBuilder.build("user:", boundaryValue));
+    }
+
+    @Test
+    public void reusedBufferDoesNotLeakBetweenKeys() {
+        CacheKeyBuilder cacheKeyBuilder = new CacheKeyBuilder(new CacheProperties());
+        Map<Object, String> expectedKeys = new HashMap<>();
+        KEY_VALUES.forEach(keyValue -> expectedKeys.put(keyValue, legacyExpressionKey("p:", keyValue)));
+        /*超过缓冲区复用上限的key之后，缓冲区重建，后续key不受影响*/
+        cacheKeyBuilder.build("p:", repeat("y", 10000));
+        KEY_VALUES.forEach(keyValue -> assertEquals(expectedKeys.get(keyValue), cacheKeyBuilder.build("p:", keyValue)));
+    }
+
+    @Test
+    public void hashTagIsDetectedLikeRedisCluster() {
+        assertTrue(CacheKeyBuilder.hasHashTag("{user:}1"));
+        assertTrue(!CacheKeyBuilder.hasHashTag("{}user:1"));
+        assertTrue(!CacheKeyBuilder.hasHashTag("user:}{1"));
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setHashTagPrefix(true);
+        CacheKeyBuilder cacheKeyBuilder = new CacheKeyBuilder(cacheProperties);
+        assertEquals("{user:}", cacheKeyBuilder.tagPrefix("user:"));
+        assertEquals("{user:}", cacheKeyBuilder.tagPrefix("{user:}"));
+        assertEquals("", cacheKeyBuilder.tagPrefix(""));
+    }
+
+    @Test
+    public void hashTagFollowsRedisClusterRules() {
+        /*只取第一个{与其后第一个}之间的部分，为空时整个key参与计算*/
+        assertTrue(CacheKeyBuilder.hasHashTag("user:{1}:profile"));
+        assertTrue(CacheKeyBuilder.hasHashTag("{a}{b}"));
+        assertTrue(CacheKeyBuilder.hasHashTag("{{a}}"));
+        assertTrue(!CacheKeyBuilder.hasHashTag("{}{a}"));
+        assertTrue(!CacheKeyBuilder.hasHashTag("user:{"));
+        assertTrue(!CacheKeyBuilder.hasHashTag("user:1"));
+        assertTrue(!CacheKeyBuilder.hasHashTag(""));
+    }
+
+    @Test
+    public void tagPrefixOnlyWrapsPrefixesWithoutUsableTag() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setHashTagPrefix(true);
+        CacheKeyBuilder cacheKeyBuilder = new CacheKeyBuilder(cacheProperties);
+        assertEquals("order:{tenant}:", cacheKeyBuilder.tagPrefix("order:{tenant}:"));
+        /*空的hash tag不生效，仍包一层*/
+        assertEquals("{{}user:}", cacheKeyBuilder.tagPrefix("{}user:"));
+        assertNull(cacheKeyBuilder.tagPrefix(null));
+        /*未开启时原样返回*/
+        CacheKeyBuilder untagged = new CacheKeyBuilder(new CacheProperties());
+        assertEquals("user:", untagged.tagPrefix("user:"));
+    }
+
+    @Test
+    public void taggedPrefixSurvivesKeyBuilding() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.setHashTagPrefix(true);
+        cacheProperties.setMaxKeyLength(64);
+        CacheKeyBuilder cacheKeyBuilder = new CacheKeyBuilder(cacheProperties);
+        String prefix = cacheKeyBuilder.tagPrefix("user:");
+        assertEquals("{user:}1", cacheKeyBuilder.build(prefix, " 1 "));
+        assertEquals("{user:}all", cacheKeyBuilder.buildLiteral(prefix, "all"));
+        /*超长key摘要后仍以带hash tag的前缀开头，与同前缀的其他key落在同一个槽*/
+        String key = cacheKeyBuilder.build(prefix, repeat("long value ", 20));
+        assertTrue(key.startsWith("{user:}md5:"));
+        assertTrue(CacheKeyBuilder.hasHashTag(key));
+    }
+
+    /**
+     * 原有的表达式key生成逻辑
+     */
+    static String legacyExpressionKey(String prefix, Object keyValue) {
+        return prefix.concat(CONVERT_OBJECT_TO_STRING.apply(keyValue, "String").replaceAll(" ", "").replaceAll("\\s*", ""));
+    }
+
+    /**
+     * 原有的字面量key生成逻辑
+     */
+    static String legacyLiteralKey(String prefix, String literalKey) {
+        return prefix.concat(literalKey.replaceAll("\\s*", ""));
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package top.yinaicheng.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 客户端分片路由测试：虚拟节点使key均匀分布，新增节点时只有约1/N的key迁移且都迁移到新节点
+ * @author yinaicheng
+ */
+public class CacheShardRouterTest {
+
+    private static final int KEY_COUNT = 100000;
+
+    private static final int VIRTUAL_NODES = 160;
+
+    /**
+     * 节点与连接工厂一一对应，通过连接工厂反查key所在的节点
+     */
+    private final Map<RedisConnectionFactory, String> factoryNodeMap = new IdentityHashMap<>();
+
+    @Test
+    public void keysAreSpreadEvenlyAcrossNodes() {
+        CacheShardRouter router = createRouter(4);
+        Map<String, Integer> countMap = new HashMap<>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            countMap.merge(nodeOf(router, "user:" + i), 1, Integer::sum);
+        }
+        assertEquals(4, countMap.size());
+        /*160个虚拟节点时各节点分到的key与平均值相差不超过20%*/
+        countMap.forEach((node, count) -> assertTrue(Math.abs(count - KEY_COUNT / 4) < KEY_COUNT / 4 * 0.2,
+                node + "=" + count));
+        router.shutdown();
+    }
+
+    @Test
+    public void addingNodeRemapsAboutOneNthOfKeys() {
+        CacheShardRouter router = createRouter(4);
+        CacheShardRouter expandedRouter = createRouter(5);
+        int movedCount = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "user:" + i;
+            String node = nodeOf(router, key);
+            String expandedNode = nodeOf(expandedRouter, key);
+            if (!node.equals(expandedNode)) {
+                movedCount++;
+                assertEquals(node(4), expandedNode, "迁移的key只能迁移到新节点");
+            }
+        }
+        double movedRatio = (double) movedCount / KEY_COUNT;
+        assertTrue(Math.abs(movedRatio - 1.0 / 5) < 0.05, "movedRatio=" + movedRatio);
+        router.shutdown();
+        expandedRouter.shutdown();
+    }
+
+    @Test
+    public void routingIgnoresNodeOrderAndHonoursHashTag() {
+        CacheShardRouter router = createRouter(4);
+        Map<String, RedisConnectionFactory> reversedMap = new LinkedHashMap<>();
+        for (int i = 3; i >= 0; i--) {
+            RedisConnectionFactory connectionFactory = new LettuceConnectionFactory();
+            reversedMap.put(node(i), connectionFactory);
+            factoryNodeMap.put(connectionFactory, node(i));
+        }
+        CacheShardRouter reversedRouter = new CacheShardRouter(reversedMap, VIRTUAL_NODES);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(nodeOf(router, "order:" + i), nodeOf(reversedRouter, "order:" + i));
+        }
+        String taggedNode = nodeOf(router, "{user:}1");
+        for (int i = 2; i < 100; i++) {
+            assertEquals(taggedNode, nodeOf(router, "{user:}" + i));
+        }
+        Map<RedisTemplate<String, Object>, List<String>> shardKeyMap = router.groupByShard(Arrays.asList("{user:}1", "{user:}2"));
+        assertEquals(1, shardKeyMap.size());
+        assertFalse(new CacheShardRouter(new HashMap<>(), VIRTUAL_NODES).isEnabled());
+        router.shutdown();
+        reversedRouter.shutdown();
+    }
+
+    private CacheShardRouter createRouter(int nodeCount) {
+        Map<String, RedisConnectionFactory> shardConnectionFactoryMap = new LinkedHashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            RedisConnectionFactory connectionFactory = new LettuceConnectionFactory();
+            shardConnectionFactoryMap.put(node(i), connectionFactory);
+            factoryNodeMap.put(connectionFactory, node(i));
+        }
+        return new CacheShardRouter(shardConnectionFactoryMap, VIRTUAL_NODES);
+    }
+
+    private String nodeOf(CacheShardRouter router, String key) {
+        return factoryNodeMap.getOrDefault(router.getShard(key).getConnectionFactory(), "unknown");
+    }
+
+    private static String node(int index) {
+        return "10.0.0." + (index + 1) + ":6379";
+    }
+}
@@ -0,0 +1,94 @@
+package top.yinaicheng.cache;
+
+import com.alibaba.fastjson.support.spring.GenericFastJsonRedisSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import top.yinaicheng.config.CacheProperties;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 前缀索引写入测试：单个和批量登记都只发送一次EVAL，成员按值序列化器编码，与读取索引时的解码一致
+ * @author yinaicheng
+ */
+public class PrefixKeyIndexTest {
+
+    /**
+     * 每次EVAL的脚本、返回类型、key数量和参数
+     */
+    private final List<Object[]> evalCalls = new ArrayList<>();
+
+    @Test
+    public void singleKeyAddSendsOneEval() {
+        PrefixKeyIndex prefixKeyIndex = new PrefixKeyIndex(createRedisTemplate(), new CacheProperties());
+        long before = System.currentTimeMillis();
+        prefixKeyIndex.add("user:", "user:1", before + 60000L);
+        assertEquals(1, evalCalls.size());
+        Object[] arguments = evalCalls.get(0);
+        String script = new String((byte[]) arguments[0], StandardCharsets.UTF_8);
+        assertTrue(script.contains("zadd") && script.contains("zremrangebyscore") && script.contains("pexpireat"));
+        assertEquals(ReturnType.INTEGER, arguments[1]);
+        assertEquals(1, arguments[2]);
+        byte[][] keysAndArgs = (byte[][]) arguments[3];
+        assertEquals(4, keysAndArgs.length);
+        assertEquals(new CacheProperties().getKeyPrefix() + "index:user:", new String(keysAndArgs[0], StandardCharsets.UTF_8));
+        long now = Long.parseLong(new String(keysAndArgs[1], StandardCharsets.UTF_8));
+        assertTrue(now >= before && now <= System.currentTimeMillis());
+        assertEquals(String.valueOf(before + 60000L), new String(keysAndArgs[2], StandardCharsets.UTF_8));
+        /*成员与读取索引时使用相同的值序列化器*/
+        assertArrayEquals(new GenericFastJsonRedisSerializer().serialize("user:1"), keysAndArgs[3]);
+    }
+
+    @Test
+    public void batchAddPassesAllMembersToOneEval() {
+        RedisTemplate<String, Object> redisTemplate = createRedisTemplate();
+        PrefixKeyIndex prefixKeyIndex = new PrefixKeyIndex(redisTemplate, new CacheProperties());
+        Map<String, Long> expireAtMap = new LinkedHashMap<>();
+        expireAtMap.put("user:1", 1000L);
+        expireAtMap.put("user:2", 3000L);
+        expireAtMap.put("user:3", 2000L);
+        prefixKeyIndex.add(redisTemplate, "user:", expireAtMap);
+        assertEquals(1, evalCalls.size());
+        byte[][] keysAndArgs = (byte[][]) evalCalls.get(0)[3];
+        assertEquals(2 + expireAtMap.size() * 2, keysAndArgs.length);
+        List<String> scores = new ArrayList<>();
+        for (int i = 2; i < keysAndArgs.length; i += 2) {
+            scores.add(new String(keysAndArgs[i], StandardCharsets.UTF_8));
+        }
+        assertEquals(Arrays.asList("1000", "3000", "2000"), scores);
+    }
+
+    private RedisTemplate<String, Object> createRedisTemplate() {
+        RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisConnection.class}, (proxy, method, arguments) -> {
+                    if ("eval".equals(method.getName())) {
+                        evalCalls.add(arguments);
+                        return 1L;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<String, Object>() {
+            @Override
+            public <T> T execute(RedisCallback<T> action) {
+                return action.doInRedis(connection);
+            }
+        };
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new GenericFastJsonRedisSerializer());
+        return redisTemplate;
+    }
+}
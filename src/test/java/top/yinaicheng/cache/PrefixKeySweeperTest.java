@@ -0,0 +1,186 @@
+package top.yinaicheng.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import top.yinaicheng.config.CacheProperties;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 前缀删除清理器测试：相同前缀的待执行任务合并，队列已满时返回失败的结果而不在调用线程中删除；
+ * 集群中带hash tag的前缀只扫描其所在槽的主节点
+ * @author yinaicheng
+ */
+public class PrefixKeySweeperTest {
+
+    private final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+    private final CountDownLatch startedLatch = new CountDownLatch(1);
+
+    private final AtomicInteger sweepCount = new AtomicInteger();
+
+    private PrefixKeySweeper sweeper;
+
+    @AfterEach
+    public void tearDown() {
+        releaseLatch.countDown();
+        if (sweeper != null) {
+            sweeper.shutdown();
+        }
+    }
+
+    @Test
+    public void pendingSweepsOfSamePrefixAreMerged() throws Exception {
+        sweeper = createSweeper(10);
+        CompletableFuture<Long> running = sweeper.sweep("user", "user:");
+        assertTrue(startedLatch.await(5, TimeUnit.SECONDS));
+        /*第一个任务已开始执行，之后的请求重新提交，尚未执行的相同请求合并*/
+        CompletableFuture<Long> queued = sweeper.sweep("user", "user:");
+        assertNotSame(running, queued);
+        assertSame(queued, sweeper.sweep("user", "user:"));
+        CompletableFuture<Long> otherCacheName = sweeper.sweep("order", "user:");
+        assertNotSame(queued, otherCacheName);
+        releaseLatch.countDown();
+        CompletableFuture.allOf(running, queued, otherCacheName).get(5, TimeUnit.SECONDS);
+        assertEquals(3, sweepCount.get());
+    }
+
+    @Test
+    public void fullQueueFailsWithoutRunningOnCaller() throws Exception {
+        sweeper = createSweeper(1);
+        sweeper.sweep("user", "a:");
+        assertTrue(startedLatch.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Long> queued = sweeper.sweep("user", "b:");
+        CompletableFuture<Long> rejected = sweeper.sweep("user", "c:");
+        /*立即返回失败的结果，调用线程没有执行删除*/
+        assertTrue(rejected.isCompletedExceptionally());
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+        assertEquals(1, sweepCount.get());
+        /*被拒绝的前缀之后仍可重新提交*/
+        releaseLatch.countDown();
+        queued.get(5, TimeUnit.SECONDS);
+        assertEquals(1L, sweeper.sweep("user", "c:").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void clusterSweepScansOnlyTaggedSlotNode() throws Exception {
+        List<String> scannedNodes = new ArrayList<>();
+        List<String> slotKeys = new ArrayList<>();
+        sweeper = createClusterSweeper(scannedNodes, slotKeys);
+        /*前缀带hash tag时只扫描其所在槽的主节点*/
+        assertEquals(1L, sweeper.sweep(null, "{user:}").get(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("{user:}"), slotKeys);
+        assertEquals(Collections.singletonList("10.0.0.2:7000"), scannedNodes);
+        /*不带hash tag时逐个扫描全部主节点*/
+        scannedNodes.clear();
+        assertEquals(3L, sweeper.sweep(null, "user:").get(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("10.0.0.1:7000", "10.0.0.2:7000", "10.0.0.3:7000"), scannedNodes);
+        assertEquals(1, slotKeys.size());
+    }
+
+    private PrefixKeySweeper createClusterSweeper(List<String> scannedNodes, List<String> slotKeys) {
+        Map<RedisClusterNode, Collection<RedisClusterNode>> masterSlaveMap = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            masterSlaveMap.put(new RedisClusterNode("10.0.0." + i, 7000), Collections.emptyList());
+        }
+        RedisClusterConnection connection = (RedisClusterConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisClusterConnection.class}, (proxy, method, arguments) -> {
+                    switch (method.getName()) {
+                        case "clusterGetNodeForKey":
+                            slotKeys.add(new String((byte[]) arguments[0], StandardCharsets.UTF_8));
+                            return new RedisClusterNode("10.0.0.2", 7000);
+                        case "clusterGetMasterSlaveMap":
+                            return masterSlaveMap;
+                        case "scan":
+                            scannedNodes.add(((RedisClusterNode) arguments[0]).asString());
+                            return createCursor(((RedisClusterNode) arguments[0]).asString());
+                        case "unlink":
+                            return (long) ((byte[][]) arguments[0]).length;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getScan().setPauseMillis(0L);
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<String, Object>() {
+            @Override
+            public <T> T execute(RedisCallback<T> action) {
+                return action.doInRedis(connection);
+            }
+        };
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        return new PrefixKeySweeper(redisTemplate, new CacheShardRouter(Collections.emptyMap(), 0),
+                new CacheNameRedisRouter(null, cacheProperties), cacheProperties);
+    }
+
+    /**
+     * 每个节点返回一个key的游标
+     */
+    @SuppressWarnings("unchecked")
+    private Cursor<byte[]> createCursor(String node) {
+        Iterator<byte[]> iterator = Collections.singletonList(node.getBytes(StandardCharsets.UTF_8)).iterator();
+        return (Cursor<byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Cursor.class},
+                (proxy, method, arguments) -> {
+                    switch (method.getName()) {
+                        case "hasNext":
+                            return iterator.hasNext();
+                        case "next":
+                            return iterator.next();
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PrefixKeySweeper createSweeper(int queueCapacity) {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getScan().setQueueCapacity(queueCapacity);
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<String, Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T execute(RedisCallback<T> action) {
+                sweepCount.incrementAndGet();
+                startedLatch.countDown();
+                try {
+                    releaseLatch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                return (T) Long.valueOf(1L);
+            }
+        };
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        return new PrefixKeySweeper(redisTemplate, new CacheShardRouter(Collections.emptyMap(), 0),
+                new CacheNameRedisRouter(null, cacheProperties), cacheProperties);
+    }
+}
@@ -0,0 +1,178 @@
+package top.yinaicheng.cache;
+
+import org.junit.jupiter.api.Test;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.constant.CircuitBreakerStateEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * redis熔断器状态切换测试：关闭、打开、半开、关闭，以及按秒分桶的滚动窗口
+ * @author yinaicheng
+ */
+public class RedisCircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    public void opensAtFailureRateAndClosesAfterSuccessfulProbes() {
+        RedisCircuitBreaker breaker = createBreaker();
+        /*未达到最少调用次数时不打开*/
+        for (int i = 0; i < 9; i++) {
+            fail(breaker);
+        }
+        assertEquals(CircuitBreakerStateEnum.CLOSED, breaker.getState());
+        /*第10次调用时错误率100%，超过50%的阈值*/
+        fail(breaker);
+        assertEquals(CircuitBreakerStateEnum.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.tryAcquire());
+        /*等待时间过后进入半开状态，只发放3个试探请求*/
+        clock.addAndGet(5000L);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+        }
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreakerStateEnum.HALF_OPEN, breaker.getState());
+        succeed(breaker);
+        succeed(breaker);
+        assertEquals(CircuitBreakerStateEnum.HALF_OPEN, breaker.getState());
+        succeed(breaker);
+        assertEquals(CircuitBreakerStateEnum.CLOSED, breaker.getState());
+        /*关闭后窗口重新统计，此前的错误不再计入*/
+        for (int i = 0; i < 9; i++) {
+            fail(breaker);
+        }
+        assertEquals(CircuitBreakerStateEnum.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void failedProbeReopens() {
+        RedisCircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 10; i++) {
+            fail(breaker);
+        }
+        clock.addAndGet(5000L);
+        assertTrue(breaker.tryAcquire());
+        fail(breaker);
+        assertEquals(CircuitBreakerStateEnum.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void failureRateBelowThresholdStaysClosed() {
+        RedisCircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 100; i++) {
+            if (i % 5 == 0) {
+                fail(breaker);
+            } else {
+                succeed(breaker);
+            }
+        }
+        assertEquals(CircuitBreakerStateEnum.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void bucketsOutsideWindowAreDropped() {
+        RedisCircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 9; i++) {
+            fail(breaker);
+        }
+        /*滚动窗口10秒，之前的错误已移出窗口*/
+        clock.addAndGet(10_000L);
+        fail(breaker);
+        for (int i = 0; i < 9; i++) {
+            succeed(breaker);
+        }
+        assertEquals(CircuitBreakerStateEnum.CLOSED, breaker.getState());
+        /*窗口内各秒的错误合并计算*/
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(1000L);
+            fail(breaker);
+            fail(breaker);
+        }
+        assertEquals(CircuitBreakerStateEnum.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void callsWithoutPermitDoNotCountAsProbes() {
+        RedisCircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 10; i++) {
+            fail(breaker);
+        }
+        clock.addAndGet(5000L);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.isOpen());
+        /*删除和未命中后的写入既不使半开状态关闭，也不使其重新打开*/
+        for (int i = 0; i < 5; i++) {
+            breaker.recordWithoutPermit(() -> null);
+        }
+        assertThrows(IllegalStateException.class, () -> breaker.recordWithoutPermit(() -> {
+            throw new IllegalStateException("redis不可用");
+        }));
+        assertEquals(CircuitBreakerStateEnum.HALF_OPEN, breaker.getState());
+        /*一次缓存操作只占用一个试探请求*/
+        breaker.record(() -> null);
+        assertTrue(breaker.tryAcquire());
+        breaker.record(() -> null);
+        assertTrue(breaker.tryAcquire());
+        breaker.record(() -> null);
+        assertEquals(CircuitBreakerStateEnum.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void concurrentFailuresOpenOnce() throws InterruptedException {
+        RedisCircuitBreaker breaker = createBreaker();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int j = 0; j < 1000; j++) {
+                    if (breaker.tryAcquire()) {
+                        fail(breaker);
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(CircuitBreakerStateEnum.OPEN, breaker.getState());
+    }
+
+    private RedisCircuitBreaker createBreaker() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getCircuitBreaker().setMinimumCalls(10);
+        return new RedisCircuitBreaker(cacheProperties, clock::get);
+    }
+
+    private static void succeed(RedisCircuitBreaker breaker) {
+        breaker.record(() -> null);
+    }
+
+    private static void fail(RedisCircuitBreaker breaker) {
+        try {
+            breaker.record(() -> {
+                throw new IllegalStateException("redis不可用");
+            });
+        } catch (IllegalStateException ignored) {
+            /*熔断器原样抛出异常*/
+        }
+    }
+}
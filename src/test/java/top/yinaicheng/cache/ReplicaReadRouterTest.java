@@ -0,0 +1,102 @@
+package top.yinaicheng.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import top.yinaicheng.config.CacheProperties;
+import top.yinaicheng.config.RedisClientProperties;
+import top.yinaicheng.config.RedisConnectionFactoryRegistry;
+import top.yinaicheng.constant.RedisClientTypeEnum;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 从节点读取路由测试：本节点写入或删除的key和前缀在读写保护时间内从主节点读取，超过保护时间后恢复从从节点读取
+ * @author yinaicheng
+ */
+public class ReplicaReadRouterTest {
+
+    private static final long WINDOW = 1000L;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    private RedisConnectionFactoryRegistry registry;
+
+    @AfterEach
+    public void tearDown() {
+        if (registry != null) {
+            registry.destroy();
+        }
+    }
+
+    @Test
+    public void writtenKeyReadsFromMasterWithinWindow() {
+        ReplicaReadRouter router = createRouter(RedisClientTypeEnum.LETTUCE, WINDOW);
+        assertTrue(router.isEnabled());
+        assertTrue(router.isReplicaReadable("user:1"));
+        router.recordWrite(Arrays.asList("user:1", "user:2"));
+        assertFalse(router.isReplicaReadable("user:1"));
+        assertFalse(router.isReplicaReadable("user:2"));
+        assertTrue(router.isReplicaReadable("user:3"));
+        clock.addAndGet(WINDOW - 1);
+        assertFalse(router.isReplicaReadable("user:1"));
+        /*再次写入时重新计算保护时间*/
+        router.recordWrite(Collections.singletonList("user:2"));
+        clock.addAndGet(2);
+        assertTrue(router.isReplicaReadable("user:1"));
+        assertFalse(router.isReplicaReadable("user:2"));
+        clock.addAndGet(WINDOW);
+        assertTrue(router.isReplicaReadable("user:2"));
+    }
+
+    @Test
+    public void prefixWriteCoversAllKeysUnderPrefixWithinWindow() {
+        ReplicaReadRouter router = createRouter(RedisClientTypeEnum.LETTUCE, WINDOW);
+        router.recordPrefixWrite(Collections.singletonList("user:"));
+        assertFalse(router.isReplicaReadable("user:1"));
+        assertFalse(router.isReplicaReadable("user:99"));
+        assertTrue(router.isReplicaReadable("order:1"));
+        clock.addAndGet(WINDOW);
+        assertFalse(router.isReplicaReadable("user:1"));
+        clock.addAndGet(1);
+        assertTrue(router.isReplicaReadable("user:1"));
+        /*超过保护时间的前缀已被清理，之后删除的前缀单独计算*/
+        router.recordPrefixWrite(Collections.singletonList("order:"));
+        assertTrue(router.isReplicaReadable("user:1"));
+        assertFalse(router.isReplicaReadable("order:1"));
+    }
+
+    @Test
+    public void zeroWindowAlwaysReadsFromReplica() {
+        ReplicaReadRouter router = createRouter(RedisClientTypeEnum.LETTUCE, 0L);
+        router.recordWrite(Collections.singletonList("user:1"));
+        router.recordPrefixWrite(Collections.singletonList("user:"));
+        assertTrue(router.isReplicaReadable("user:1"));
+    }
+
+    @Test
+    public void disabledWithoutReadConnection() {
+        /*Jedis不支持从从节点读取，且未配置readTimeout时不使用单独的读取连接*/
+        ReplicaReadRouter router = createRouter(RedisClientTypeEnum.JEDIS, WINDOW);
+        assertFalse(router.isEnabled());
+        assertFalse(router.isReplicaReadable("user:1"));
+    }
+
+    private ReplicaReadRouter createRouter(RedisClientTypeEnum clientType, long readAfterWriteWindow) {
+        RedisClientProperties redisClientProperties = new RedisClientProperties();
+        redisClientProperties.setClientType(clientType);
+        redisClientProperties.getLettuce().setIoThreadPoolSize(1);
+        registry = new RedisConnectionFactoryRegistry(redisClientProperties);
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getRedis().setReadAfterWriteWindow(readAfterWriteWindow);
+        if (clientType == RedisClientTypeEnum.LETTUCE) {
+            /*只创建连接工厂，不连接Redis*/
+            cacheProperties.getRedis().setReadTimeout(50);
+        }
+        return new ReplicaReadRouter(registry, cacheProperties, clock::get);
+    }
+}
@@ -0,0 +1,77 @@
+package top.yinaicheng.cache.async;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 异步返回值适配器测试：返回值与CompletableFuture的相互转换、Mono的惰性查询以及完成后执行的操作
+ * @author yinaicheng
+ */
+public class AsyncReturnAdapterTest {
+
+    private final CompletionStageReturnAdapter completionStageReturnAdapter = new CompletionStageReturnAdapter();
+
+    private final MonoReturnAdapter monoReturnAdapter = new MonoReturnAdapter();
+
+    @Test
+    public void completionStageAdapterConvertsBothWays() throws Exception {
+        assertTrue(completionStageReturnAdapter.supports(CompletableFuture.class));
+        assertTrue(completionStageReturnAdapter.supports(CompletionStage.class));
+        assertFalse(completionStageReturnAdapter.supports(Mono.class));
+        assertEquals("user", completionStageReturnAdapter.toFuture(CompletableFuture.completedFuture("user")).get());
+        assertNull(completionStageReturnAdapter.toFuture(null).get());
+        CompletableFuture<Object> future = CompletableFuture.completedFuture("user");
+        assertSame(future, completionStageReturnAdapter.fromFuture(() -> future));
+    }
+
+    @Test
+    public void completionStageAdapterRunsActionAfterCompletion() {
+        AtomicInteger actionCount = new AtomicInteger();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        Object returnValue = completionStageReturnAdapter.afterCompletion(future, actionCount::incrementAndGet);
+        assertEquals(0, actionCount.get());
+        future.completeExceptionally(new IllegalStateException("方法出错"));
+        assertEquals(1, actionCount.get());
+        assertTrue(((CompletableFuture<?>) returnValue).isCompletedExceptionally());
+        /*返回null时立即执行*/
+        assertNull(completionStageReturnAdapter.afterCompletion(null, actionCount::incrementAndGet));
+        assertEquals(2, actionCount.get());
+    }
+
+    @Test
+    public void monoAdapterQueriesOnSubscribe() {
+        assertTrue(monoReturnAdapter.supports(Mono.class));
+        assertFalse(monoReturnAdapter.supports(CompletableFuture.class));
+        AtomicInteger queryCount = new AtomicInteger();
+        Mono<?> mono = (Mono<?>) monoReturnAdapter.fromFuture(() -> {
+            queryCount.incrementAndGet();
+            return CompletableFuture.completedFuture("user");
+        });
+        assertEquals(0, queryCount.get());
+        assertEquals("user", mono.block());
+        assertEquals("user", mono.block());
+        assertEquals(2, queryCount.get());
+    }
+
+    @Test
+    public void monoAdapterTreatsEmptyAsNull() throws Exception {
+        assertNull(monoReturnAdapter.toFuture(Mono.empty()).get());
+        assertNull(monoReturnAdapter.toFuture(null).get());
+        assertEquals("user", monoReturnAdapter.toFuture(Mono.just("user")).get());
+        AtomicInteger actionCount = new AtomicInteger();
+        Mono<?> mono = (Mono<?>) monoReturnAdapter.afterCompletion(Mono.just("user"), actionCount::incrementAndGet);
+        assertEquals(0, actionCount.get());
+        mono.block();
+        assertEquals(1, actionCount.get());
+    }
+}
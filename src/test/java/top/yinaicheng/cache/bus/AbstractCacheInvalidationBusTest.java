@@ -0,0 +1,152 @@
+package top.yinaicheng.cache.bus;
+
+import com.alibaba.fastjson.support.spring.GenericFastJsonRedisSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.yinaicheng.cache.CacheGenerationManager;
+import top.yinaicheng.cache.LocalCacheManager;
+import top.yinaicheng.cache.RedisCircuitBreaker;
+import top.yinaicheng.config.CacheProperties;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 失效通知消息序号处理测试：按序、重复和乱序到达的消息只删除各自的key，丢失消息时只清空丢失消息涉及的cacheName，
+ * 丢失的消息超出记录范围时清空全部本地缓存
+ * @author yinaicheng
+ */
+public class AbstractCacheInvalidationBusTest {
+
+    private static final String NODE_ID = "node-a";
+
+    private LocalCacheManager localCacheManager;
+
+    private AbstractCacheInvalidationBus bus;
+
+    @BeforeEach
+    public void setUp() {
+        CacheProperties cacheProperties = new CacheProperties();
+        cacheProperties.getLocal().setEnabled(true);
+        localCacheManager = new LocalCacheManager(cacheProperties);
+        CacheGenerationManager cacheGenerationManager = new CacheGenerationManager(null, cacheProperties,
+                new RedisCircuitBreaker(cacheProperties));
+        bus = new AbstractCacheInvalidationBus(localCacheManager, cacheGenerationManager, cacheProperties) {
+            @Override
+            protected void connect() {
+            }
+
+            @Override
+            protected void send(InvalidationMessage message) {
+            }
+
+            @Override
+            protected void disconnect() {
+            }
+        };
+        for (int i = 1; i <= 3; i++) {
+            localCacheManager.put("user", "user:" + i, i, 60000L);
+            localCacheManager.put("order", "order:" + i, i, 60000L);
+            localCacheManager.put("product", "product:" + i, i, 60000L);
+        }
+    }
+
+    @Test
+    public void inOrderDuplicateAndReorderedMessagesOnlyEvictTheirKeys() {
+        bus.onMessage(message(1, false, "user:1"));
+        bus.onMessage(message(2, false, "order:1"));
+        /*重复到达*/
+        bus.onMessage(message(2, false, "order:2"));
+        /*跳过序号3后，序号3乱序到达：序号4到达时清空序号3涉及的cacheName，序号3到达时只删除它的key*/
+        bus.onMessage(message(4, false, "product:1", recent(3, "user"), recent(4, "product")));
+        bus.onMessage(message(3, false, "order:3"));
+        assertNull(localCacheManager.get("user", "user:1"));
+        assertNull(localCacheManager.get("order", "order:1"));
+        assertNull(localCacheManager.get("order", "order:2"));
+        assertNull(localCacheManager.get("order", "order:3"));
+        assertNull(localCacheManager.get("product", "product:1"));
+        /*序号3丢失只清空user区域*/
+        assertNull(localCacheManager.get("user", "user:2"));
+        assertNotNull(localCacheManager.get("product", "product:2"));
+    }
+
+    @Test
+    public void inOrderMessagesDoNotClearRegions() {
+        bus.onMessage(message(1, false, "user:1"));
+        bus.onMessage(message(2, false, "user:2"));
+        bus.onMessage(message(2, true, null));
+        bus.onMessage(message(1, false, "order:1"));
+        assertNull(localCacheManager.get("user", "user:1"));
+        assertNull(localCacheManager.get("user", "user:2"));
+        assertNotNull(localCacheManager.get("user", "user:3"));
+        assertNull(localCacheManager.get("order", "order:1"));
+        assertNotNull(localCacheManager.get("order", "order:2"));
+        assertNotNull(localCacheManager.get("product", "product:1"));
+    }
+
+    @Test
+    public void gapClearsOnlyMissingCacheNames() {
+        bus.onMessage(message(1, false, "user:1"));
+        bus.onMessage(message(4, false, "product:1", recent(2, "order"), recent(3, "order"), recent(4, "product")));
+        assertNull(localCacheManager.get("order", "order:2"));
+        assertNull(localCacheManager.get("order", "order:3"));
+        assertNull(localCacheManager.get("product", "product:1"));
+        assertNotNull(localCacheManager.get("product", "product:2"));
+        assertNotNull(localCacheManager.get("user", "user:2"));
+    }
+
+    @Test
+    public void heartbeatAfterGapClearsMissingCacheNames() {
+        bus.onMessage(message(1, false, "user:1"));
+        /*心跳的序号是发送节点最近一条消息的序号，序号2丢失*/
+        bus.onMessage(message(2, true, null, recent(2, "product")));
+        assertNull(localCacheManager.get("product", "product:3"));
+        assertNotNull(localCacheManager.get("order", "order:3"));
+        assertNotNull(localCacheManager.get("user", "user:3"));
+    }
+
+    @Test
+    public void gapBeyondRecentRecordsClearsAllRegions() {
+        bus.onMessage(message(1, false, "user:1"));
+        bus.onMessage(message(100, false, "user:2", recent(99, "order"), recent(100, "user")));
+        assertNull(localCacheManager.get("user", "user:3"));
+        assertNull(localCacheManager.get("order", "order:3"));
+        assertNull(localCacheManager.get("product", "product:3"));
+    }
+
+    @Test
+    public void recentCacheNamesSurviveRedisSerialization() {
+        GenericFastJsonRedisSerializer serializer = new GenericFastJsonRedisSerializer();
+        Object deserialized = serializer.deserialize(serializer.serialize(
+                message(4, false, "product:1", recent(3, "user"), recent(4, "product"))));
+        assertTrue(deserialized instanceof InvalidationMessage);
+        bus.onMessage(message(2, false, "order:1"));
+        bus.onMessage((InvalidationMessage) deserialized);
+        assertNull(localCacheManager.get("user", "user:2"));
+        assertNull(localCacheManager.get("product", "product:1"));
+        assertNotNull(localCacheManager.get("order", "order:2"));
+    }
+
+    @SafeVarargs
+    private static InvalidationMessage message(long sequence, boolean heartbeat, String key,
+                                               Map.Entry<Long, List<String>>... recentCacheNames) {
+        Map<Long, List<String>> recentCacheNameMap = new HashMap<>();
+        for (Map.Entry<Long, List<String>> entry : recentCacheNames) {
+            recentCacheNameMap.put(entry.getKey(), entry.getValue());
+        }
+        return new InvalidationMessage(NODE_ID, sequence, heartbeat,
+                key == null ? Collections.emptyList() : Collections.singletonList(key), Collections.emptyList(), recentCacheNameMap);
+    }
+
+    private static Map.Entry<Long, List<String>> recent(long sequence, String... cacheNames) {
+        return new AbstractMap.SimpleEntry<>(sequence, Arrays.asList(cacheNames));
+    }
+}
@@ -0,0 +1,99 @@
+package top.yinaicheng.cache.codec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import top.yinaicheng.cache.compress.CacheCompressionMetrics;
+import top.yinaicheng.cache.compress.CacheValueCompression;
+import top.yinaicheng.cache.compress.CacheValueCompressor;
+import top.yinaicheng.cache.compress.DeflateCacheValueCompressor;
+import top.yinaicheng.cache.compress.GzipCacheValueCompressor;
+import top.yinaicheng.cache.compress.SnappyCacheValueCompressor;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存值编解码与压缩性能对比，同时输出各组合的编码后大小；
+ * 运行方式：mvn test-compile 后执行本类的main方法，JDK9及以上版本需要加上pom中jdk9+配置的--add-opens参数
+ * @author yinaicheng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheValueSerializerBenchmark {
+
+    @Param({"fastjson", "fst", "typed-json"})
+    private String codecName;
+
+    @Param({"none", "deflate", "gzip", "snappy"})
+    private String compressorName;
+
+    @Param({"10", "1000"})
+    private int size;
+
+    private CacheValueSerializer serializer;
+
+    private EncodedCacheValue encodedCacheValue;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = CacheValueSerializerTest.createSerializer(new CacheCompressionMetrics());
+        CacheValueCodec codec = new FastJsonCacheValueCodec();
+        for (CacheValueCodec candidate : new CacheValueCodec[]{codec, new FstCacheValueCodec(), new TypedJsonCacheValueCodec()}) {
+            if (candidate.getName().equals(codecName)) {
+                codec = candidate;
+            }
+        }
+        CacheValueCompression compression = null;
+        for (CacheValueCompressor compressor : new CacheValueCompressor[]{new DeflateCacheValueCompressor(),
+                new GzipCacheValueCompressor(), new SnappyCacheValueCompressor()}) {
+            if (compressor.getName().equals(compressorName)) {
+                compression = new CacheValueCompression("benchmark", compressor, 0);
+            }
+        }
+        List<String> value = CacheValueSerializerTest.sampleList(size);
+        encodedCacheValue = new EncodedCacheValue(codec, value, compression);
+        bytes = serializer.serialize(encodedCacheValue);
+        System.out.println(codecName + "+" + compressorName + " size=" + size + " encodedBytes=" + bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(encodedCacheValue);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        Object value = serializer.deserialize(bytes);
+        if (value instanceof UndecodedCacheValue) {
+            UndecodedCacheValue undecodedCacheValue = (UndecodedCacheValue) value;
+            return undecodedCacheValue.getCodec().decode(undecodedCacheValue.getBytes(), List.class);
+        }
+        return value;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        /*fork出的JVM沿用当前JVM的--add-opens参数*/
+        new Runner(new OptionsBuilder().include(CacheValueSerializerBenchmark.class.getSimpleName())
+                .jvmArgsAppend(ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                        .filter(argument -> argument.startsWith("--add-opens")).toArray(String[]::new)).build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package top.yinaicheng.cache.codec;
+
+import com.alibaba.fastjson.support.spring.GenericFastJsonRedisSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+import top.yinaicheng.cache.compress.CacheCompressionMetrics;
+import top.yinaicheng.cache.compress.CacheValueCompression;
+import top.yinaicheng.cache.compress.CacheValueCompressor;
+import top.yinaicheng.cache.compress.DeflateCacheValueCompressor;
+import top.yinaicheng.cache.compress.GzipCacheValueCompressor;
+import top.yinaicheng.cache.compress.SnappyCacheValueCompressor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 缓存值序列化器的格式测试：不带标识字节的原有FastJson值、0x10|编解码器标识、0x80压缩标识，
+ * 覆盖所有编解码器与压缩算法的组合
+ * @author yinaicheng
+ */
+public class CacheValueSerializerTest {
+
+    private static final List<CacheValueCodec> CODECS = Arrays.asList(
+            new FastJsonCacheValueCodec(), new FstCacheValueCodec(), new TypedJsonCacheValueCodec());
+
+    private static final List<CacheValueCompressor> COMPRESSORS = Arrays.asList(
+            new DeflateCacheValueCompressor(), new GzipCacheValueCompressor(), new SnappyCacheValueCompressor());
+
+    @Test
+    public void legacyFastJsonValuesWithoutHeaderAreReadable() {
+        CacheValueSerializer serializer = createSerializer(new CacheCompressionMetrics());
+        GenericFastJsonRedisSerializer legacySerializer = new GenericFastJsonRedisSerializer();
+        for (Object value : Arrays.asList("text", 123, 45.6, true, sampleList(3), sampleMap())) {
+            byte[] legacyBytes = legacySerializer.serialize(value);
+            /*首字节不会落在标识字节的范围内*/
+            int header = legacyBytes[0] & 0xFF;
+            assertTrue((header & 0xF0) != CacheValueSerializer.HEADER_MARK && (header & CacheValueSerializer.COMPRESSED_MARK) == 0,
+                    "value=" + value);
+            assertEquals(value, serializer.deserialize(legacyBytes));
+            /*未指定编解码器的值与原有格式一致*/
+            assertArrayEquals(legacyBytes, serializer.serialize(value));
+        }
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    public void uncompressedValuesCarryCodecHeader() {
+        CacheValueSerializer serializer = createSerializer(new CacheCompressionMetrics());
+        List<String> value = sampleList(3);
+        for (CacheValueCodec codec : CODECS) {
+            byte[] bytes = serializer.serialize(new EncodedCacheValue(codec, value));
+            if (codec instanceof FastJsonCacheValueCodec) {
+                assertArrayEquals(codec.encode(value), bytes, "默认编解码器不写入标识字节");
+            } else {
+                assertEquals(CacheValueSerializer.HEADER_MARK | codec.getId(), bytes[0] & 0xFF, codec.getName());
+            }
+            assertEquals(value, decode(serializer.deserialize(bytes)), codec.getName());
+        }
+    }
+
+    @Test
+    public void compressedValuesCarryCompressorAndCodecHeader() {
+        CacheCompressionMetrics cacheCompressionMetrics = new CacheCompressionMetrics();
+        CacheValueSerializer serializer = createSerializer(cacheCompressionMetrics);
+        List<String> value = sampleList(200);
+        for (CacheValueCodec codec : CODECS) {
+            for (CacheValueCompressor compressor : COMPRESSORS) {
+                String description = codec.getName() + "+" + compressor.getName();
+                byte[] bytes = serializer.serialize(new EncodedCacheValue(codec, value,
+                        new CacheValueCompression("test", compressor, 64)));
+                assertEquals(CacheValueSerializer.COMPRESSED_MARK | compressor.getId() << 4 | codec.getId(), bytes[0] & 0xFF, description);
+                assertTrue(bytes.length < codec.encode(value).length, description);
+                assertEquals(value, decode(serializer.deserialize(bytes)), description);
+            }
+        }
+        COMPRESSORS.forEach(compressor -> assertEquals(CODECS.size(),
+                cacheCompressionMetrics.getDecompressionStatistics().get(compressor.getName()).getCount()));
+    }
+
+    @Test
+    public void valuesBelowThresholdOrNotShrinkingStayUncompressed() {
+        CacheValueSerializer serializer = createSerializer(new CacheCompressionMetrics());
+        CacheValueCodec codec = new FstCacheValueCodec();
+        for (CacheValueCompressor compressor : COMPRESSORS) {
+            /*低于阈值*/
+            byte[] bytes = serializer.serialize(new EncodedCacheValue(codec, "short",
+                    new CacheValueCompression("test", compressor, 1024)));
+            assertEquals(CacheValueSerializer.HEADER_MARK | codec.getId(), bytes[0] & 0xFF, compressor.getName());
+            /*压缩后没有变小*/
+            bytes = serializer.serialize(new EncodedCacheValue(codec, "x", new CacheValueCompression("test", compressor, 0)));
+            assertEquals(CacheValueSerializer.HEADER_MARK | codec.getId(), bytes[0] & 0xFF, compressor.getName());
+            assertEquals("x", serializer.deserialize(bytes));
+        }
+    }
+
+    @Test
+    public void unknownCodecOrCompressorIsRejected() {
+        CacheValueSerializer serializer = createSerializer(new CacheCompressionMetrics());
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{(byte) (CacheValueSerializer.HEADER_MARK | 9), 1}));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[]{(byte) (CacheValueSerializer.COMPRESSED_MARK | 7 << 4), 1}));
+    }
+
+    /**
+     * 与CacheValueCodecRegistry相同，按标识索引编解码器和压缩算法
+     */
+    static CacheValueSerializer createSerializer(CacheCompressionMetrics cacheCompressionMetrics) {
+        CacheValueCodec[] codecs = new CacheValueCodec[16];
+        CODECS.forEach(codec -> codecs[codec.getId()] = codec);
+        CacheValueCompressor[] compressors = new CacheValueCompressor[8];
+        COMPRESSORS.forEach(compressor -> compressors[compressor.getId()] = compressor);
+        return new CacheValueSerializer(codecs, codecs[0], compressors, cacheCompressionMetrics);
+    }
+
+    /**
+     * 需要返回值类型的编解码器按缓存切面的方式解码
+     */
+    private static Object decode(Object value) {
+        if (value instanceof UndecodedCacheValue) {
+            UndecodedCacheValue undecodedCacheValue = (UndecodedCacheValue) value;
+            return undecodedCacheValue.getCodec().decode(undecodedCacheValue.getBytes(), List.class);
+        }
+        return value;
+    }
+
+    static List<String> sampleList(int size) {
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add("user-" + i + ":name-" + (i % 10));
+        }
+        return list;
+    }
+
+    private static Map<String, Object> sampleMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", 1);
+        map.put("name", "yinaicheng");
+        return map;
+    }
+}
@@ -0,0 +1,52 @@
+package top.yinaicheng.config;
+
+import org.junit.jupiter.api.Test;
+import top.yinaicheng.constant.RedisModeEnum;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * cacheName单独使用的Redis连接配置测试：未配置的项沿用yinaicheng.cache.redis
+ * @author yinaicheng
+ */
+public class CacheNameRedisPropertiesTest {
+
+    @Test
+    public void unsetFieldsInheritGlobalSettings() {
+        CacheProperties.RedisCacheProperties global = new CacheProperties.RedisCacheProperties();
+        global.setHost("10.0.0.1");
+        global.setPassword("secret");
+        global.setTimeout(500);
+        global.setDatabase(2);
+        CacheProperties.CacheNameRedisProperties redis = new CacheProperties.CacheNameRedisProperties();
+        redis.setHost("10.0.0.5");
+        redis.setDatabase(3);
+        CacheProperties.RedisCacheProperties merged = redis.merge(global);
+        assertEquals("10.0.0.5", merged.getHost());
+        assertEquals(6379, merged.getPort());
+        assertEquals(3, merged.getDatabase());
+        assertEquals("secret", merged.getPassword());
+        assertEquals(500, merged.getTimeout());
+        assertEquals(RedisModeEnum.STANDALONE, merged.getMode());
+    }
+
+    @Test
+    public void modeFollowsConfiguredAddress() {
+        CacheProperties.RedisCacheProperties global = new CacheProperties.RedisCacheProperties();
+        global.setMode(RedisModeEnum.CLUSTER);
+        global.setNodes(Arrays.asList("10.0.0.1:7000", "10.0.0.2:7000"));
+        /*只配置了地址时按单机连接，不沿用全局的集群节点*/
+        CacheProperties.CacheNameRedisProperties standalone = new CacheProperties.CacheNameRedisProperties();
+        standalone.setPort(6380);
+        assertEquals(RedisModeEnum.STANDALONE, standalone.merge(global).getMode());
+        /*只配置了节点时沿用全局的模式*/
+        CacheProperties.CacheNameRedisProperties cluster = new CacheProperties.CacheNameRedisProperties();
+        cluster.setNodes(Collections.singletonList("10.0.0.9:7000"));
+        CacheProperties.RedisCacheProperties merged = cluster.merge(global);
+        assertEquals(RedisModeEnum.CLUSTER, merged.getMode());
+        assertEquals(Collections.singletonList("10.0.0.9:7000"), merged.getNodes());
+    }
+}
@@ -0,0 +1,120 @@
+package top.yinaicheng.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import top.yinaicheng.constant.RedisClientTypeEnum;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Redis客户端并发读写性能对比：200个线程对RedisConnectionFactoryRegistry创建的Jedis连接工厂、
+ * 关闭和开启自动流水线（FlushConsolidationHandler合并flush）的Lettuce连接工厂执行相同的GET/SET混合操作；
+ * 运行方式：mvn test-compile 后执行本类的main方法，通过 -Dredis.address=host:port 指定Redis地址，未指定时跳过
+ * @author yinaicheng
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(200)
+@Fork(1)
+public class RedisConnectionFactoryBenchmark {
+
+    /**
+     * Redis地址的系统属性名
+     */
+    private static final String ADDRESS_PROPERTY = "redis.address";
+
+    private static final String KEY_PREFIX = "yinaicheng:benchmark:";
+
+    private static final int KEY_COUNT = 1000;
+
+    /**
+     * GET操作的比例（百分比），其余为SET
+     */
+    private static final int GET_PERCENT = 80;
+
+    @Param({"JEDIS", "LETTUCE", "LETTUCE_AUTO_PIPELINING"})
+    private String client;
+
+    private RedisConnectionFactoryRegistry registry;
+
+    private StringRedisTemplate redisTemplate;
+
+    private String value;
+
+    @Setup
+    public void setUp() {
+        String address = System.getProperty(ADDRESS_PROPERTY);
+        if (address == null || address.isEmpty()) {
+            throw new IllegalStateException("未通过-D" + ADDRESS_PROPERTY + "=host:port指定Redis地址");
+        }
+        RedisClientProperties redisClientProperties = new RedisClientProperties();
+        redisClientProperties.setClientType("JEDIS".equals(client) ? RedisClientTypeEnum.JEDIS : RedisClientTypeEnum.LETTUCE);
+        redisClientProperties.getLettuce().setAutoPipelining("LETTUCE_AUTO_PIPELINING".equals(client));
+        registry = new RedisConnectionFactoryRegistry(redisClientProperties);
+        CacheProperties.RedisCacheProperties redis = new CacheProperties.RedisCacheProperties();
+        redis.setHost(address.substring(0, address.lastIndexOf(':')));
+        redis.setPort(Integer.parseInt(address.substring(address.lastIndexOf(':') + 1)));
+        redisTemplate = new StringRedisTemplate(registry.getConnectionFactory(redis));
+        StringBuilder valueBuilder = new StringBuilder();
+        for (int i = 0; i < 128; i++) {
+            valueBuilder.append((char) ('a' + i % 26));
+        }
+        value = valueBuilder.toString();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            redisTemplate.opsForValue().set(KEY_PREFIX + i, value);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int i = 0; i < KEY_COUNT; i++) {
+            redisTemplate.delete(KEY_PREFIX + i);
+        }
+        registry.destroy();
+    }
+
+    @Benchmark
+    public Object getSetMix() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String key = KEY_PREFIX + random.nextInt(KEY_COUNT);
+        if (random.nextInt(100) < GET_PERCENT) {
+            return redisTemplate.opsForValue().get(key);
+        }
+        redisTemplate.opsForValue().set(key, value);
+        return key;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String address = System.getProperty(ADDRESS_PROPERTY);
+        if (address == null || address.isEmpty()) {
+            System.out.println("未通过-D" + ADDRESS_PROPERTY + "=host:port指定Redis地址，跳过" + RedisConnectionFactoryBenchmark.class.getSimpleName());
+            return;
+        }
+        /*fork出的JVM沿用当前JVM的--add-opens参数和Redis地址*/
+        new Runner(new OptionsBuilder().include(RedisConnectionFactoryBenchmark.class.getSimpleName())
+                .jvmArgsAppend(Stream.concat(ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                        .filter(argument -> argument.startsWith("--add-opens")), Stream.of("-D" + ADDRESS_PROPERTY + "=" + address))
+                        .toArray(String[]::new)).build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package top.yinaicheng.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import top.yinaicheng.constant.RedisClientTypeEnum;
+import top.yinaicheng.constant.RedisModeEnum;
+import top.yinaicheng.constant.RedisReadFromEnum;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Redis连接工厂注册表测试：Lettuce按地址、数据库、密码、超时时间和读取策略共用连接工厂，Jedis每次创建新的连接工厂；
+ * 创建连接工厂不连接Redis
+ * @author yinaicheng
+ */
+public class RedisConnectionFactoryRegistryTest {
+
+    private RedisConnectionFactoryRegistry registry;
+
+    @AfterEach
+    public void tearDown() {
+        if (registry != null) {
+            registry.destroy();
+        }
+    }
+
+    @Test
+    public void lettuceSharesFactoryOfSameAddress() {
+        registry = createRegistry(RedisClientTypeEnum.LETTUCE);
+        RedisConnectionFactory connectionFactory = registry.getConnectionFactory(redis("10.0.0.1", 6379, 0, "secret"));
+        assertTrue(connectionFactory instanceof LettuceConnectionFactory);
+        assertSame(connectionFactory, registry.getConnectionFactory(redis("10.0.0.1", 6379, 0, "secret")));
+        /*地址、数据库、密码或超时时间不同时使用不同的连接工厂*/
+        assertNotSame(connectionFactory, registry.getConnectionFactory(redis("10.0.0.2", 6379, 0, "secret")));
+        assertNotSame(connectionFactory, registry.getConnectionFactory(redis("10.0.0.1", 6380, 0, "secret")));
+        assertNotSame(connectionFactory, registry.getConnectionFactory(redis("10.0.0.1", 6379, 1, "secret")));
+        assertNotSame(connectionFactory, registry.getConnectionFactory(redis("10.0.0.1", 6379, 0, "other")));
+        CacheProperties.RedisCacheProperties longTimeout = redis("10.0.0.1", 6379, 0, "secret");
+        longTimeout.setTimeout(longTimeout.getTimeout() * 2);
+        assertNotSame(connectionFactory, registry.getConnectionFactory(longTimeout));
+    }
+
+    @Test
+    public void jedisCreatesFactoryPerCall() {
+        registry = createRegistry(RedisClientTypeEnum.JEDIS);
+        RedisConnectionFactory connectionFactory = registry.getConnectionFactory(redis("10.0.0.1", 6379, 0, null));
+        assertTrue(connectionFactory instanceof JedisConnectionFactory);
+        assertNotSame(connectionFactory, registry.getConnectionFactory(redis("10.0.0.1", 6379, 0, null)));
+    }
+
+    @Test
+    public void shardNodesShareFactoryWithStandaloneOfSameAddress() {
+        registry = createRegistry(RedisClientTypeEnum.LETTUCE);
+        CacheProperties.RedisCacheProperties sharded = redis("10.0.0.1", 6379, 0, null);
+        sharded.setMode(RedisModeEnum.SHARDED);
+        sharded.setNodes(Arrays.asList("10.0.0.3:6379", "10.0.0.1:6379", "10.0.0.2:6379"));
+        Map<String, RedisConnectionFactory> shardConnectionFactoryMap = registry.getShardConnectionFactories(sharded);
+        assertEquals(Arrays.asList("10.0.0.3:6379", "10.0.0.1:6379", "10.0.0.2:6379"), new ArrayList<>(shardConnectionFactoryMap.keySet()));
+        assertSame(registry.getConnectionFactory(redis("10.0.0.1", 6379, 0, null)), shardConnectionFactoryMap.get("10.0.0.1:6379"));
+        /*客户端分片模式下host和port指定的节点按单机连接*/
+        assertSame(shardConnectionFactoryMap.get("10.0.0.1:6379"), registry.getConnectionFactory(sharded));
+    }
+
+    @Test
+    public void readFactoryIsSeparatedByReadFromAndTimeout() {
+        registry = createRegistry(RedisClientTypeEnum.LETTUCE);
+        CacheProperties.RedisCacheProperties redis = redis("10.0.0.1", 6379, 0, null);
+        /*从主节点读取且未配置readTimeout时使用写入的连接工厂*/
+        assertNull(registry.getReadConnectionFactory(redis));
+        redis.setReadTimeout(50);
+        RedisConnectionFactory masterReadFactory = registry.getReadConnectionFactory(redis);
+        assertNotSame(registry.getConnectionFactory(redis), masterReadFactory);
+        assertSame(masterReadFactory, registry.getReadConnectionFactory(redis));
+        redis.setReadFrom(RedisReadFromEnum.REPLICA_PREFERRED);
+        redis.setReplicas(Collections.singletonList("10.0.0.2:6379"));
+        RedisConnectionFactory replicaReadFactory = registry.getReadConnectionFactory(redis);
+        assertNotSame(masterReadFactory, replicaReadFactory);
+        assertSame(replicaReadFactory, registry.getReadConnectionFactory(redis));
+        redis.setReadFrom(RedisReadFromEnum.NEAREST);
+        assertNotSame(replicaReadFactory, registry.getReadConnectionFactory(redis));
+    }
+
+    @Test
+    public void replicaReadFallsBackWithJedis() {
+        registry = createRegistry(RedisClientTypeEnum.JEDIS);
+        CacheProperties.RedisCacheProperties redis = redis("10.0.0.1", 6379, 0, null);
+        redis.setReadFrom(RedisReadFromEnum.REPLICA);
+        redis.setReplicas(Collections.singletonList("10.0.0.2:6379"));
+        assertNull(registry.getReadConnectionFactory(redis));
+    }
+
+    private static RedisConnectionFactoryRegistry createRegistry(RedisClientTypeEnum clientType) {
+        RedisClientProperties redisClientProperties = new RedisClientProperties();
+        redisClientProperties.setClientType(clientType);
+        redisClientProperties.getLettuce().setIoThreadPoolSize(1);
+        return new RedisConnectionFactoryRegistry(redisClientProperties);
+    }
+
+    private static CacheProperties.RedisCacheProperties redis(String host, int port, int database, String password) {
+        CacheProperties.RedisCacheProperties redis = new CacheProperties.RedisCacheProperties();
+        redis.setHost(host);
+        redis.setPort(port);
+        redis.setDatabase(database);
+        redis.setPassword(password);
+        return redis;
+    }
+}